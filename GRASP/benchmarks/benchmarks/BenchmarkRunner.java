@@ -0,0 +1,25 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks whose names match the first argument (every benchmark
+ * by default) with the GC profiler, which reports the allocation rate and
+ * the bytes allocated per operation.
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(args.length > 0 ? args[0] : "benchmarks\\..*")
+				.addProfiler(GCProfiler.class)
+				.jvmArgsAppend("-Dpap.instances=" + System.getProperty("pap.instances", "../instances"))
+				.build();
+		new Runner(options).run();
+	}
+
+}
@@ -0,0 +1,109 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import models.ConstructiveHeuristicType;
+import models.LocalSearchType;
+import models.Triple;
+import problems.pap.PAP;
+import problems.pap.PAPInstance;
+import problems.pap.solvers.GRASP_PAP;
+import solutions.Solution;
+
+/**
+ * Microbenchmarks of the PAP objective function on a locally optimal solution:
+ * full evaluation, validation (with the delta state already synchronized and
+ * rebuilt from scratch) and the cost variation of insertions and exchanges.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatorBenchmark {
+
+	@Param({ "P50D50S5.pap", "P70D100S6.pap", "P100D150S10.pap" })
+	public String instance;
+
+	private PAP pap;
+	private Solution<Triple> sol, otherSol;
+	private Triple[] candidates, solTriples;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		PAPInstance papInstance = Instances.read(instance);
+		pap = new PAP(papInstance);
+
+		// Two realistic, feasible solutions, from short runs with different seeds
+		sol = solve(papInstance, 0);
+		otherSol = solve(papInstance, 1);
+		solTriples = sol.toArray(new Triple[0]);
+
+		SplittableRandom rng = new SplittableRandom(0);
+		List<Triple> _candidates = new ArrayList<Triple>();
+		for (int i = 0; i < 1024; i++)
+			_candidates.add(new Triple(rng.nextInt(papInstance.P), rng.nextInt(papInstance.D), rng.nextInt(papInstance.T)));
+		candidates = _candidates.toArray(new Triple[0]);
+	}
+
+	private static Solution<Triple> solve(PAPInstance papInstance, long seed) {
+		GRASP_PAP grasp = new GRASP_PAP(0.5, 20, papInstance, LocalSearchType.REASSIGN_PERIODS,
+				ConstructiveHeuristicType.DEFAULT);
+		grasp.setSeed(seed);
+		return grasp.solve();
+	}
+
+	private int nextIndex() {
+		return next = (next + 1) & (candidates.length - 1);
+	}
+
+	@Benchmark
+	public Double evaluate() {
+		return pap.evaluate(sol);
+	}
+
+	@Benchmark
+	public boolean validate() {
+		return pap.validate(sol);
+	}
+
+	/**
+	 * Alternates between two solutions, so the delta state is rebuilt on
+	 * every call.
+	 */
+	@Benchmark
+	public boolean validateResync() {
+		return pap.validate((nextIndex() & 1) == 0 ? sol : otherSol);
+	}
+
+	@Benchmark
+	public Double evaluateInsertionCost() {
+		return pap.evaluateInsertionCost(candidates[nextIndex()], sol);
+	}
+
+	@Benchmark
+	public Double evaluateExchangeCost() {
+		int i = nextIndex();
+		return pap.evaluateExchangeCost(candidates[i], solTriples[i % solTriples.length], sol);
+	}
+
+}
@@ -0,0 +1,32 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import problems.pap.PAPInstance;
+import problems.pap.PAPReader;
+
+/**
+ * Location of the instances used by the benchmarks, given by the system
+ * property "pap.instances" (by default, the instances folder of the project
+ * when run from GRASP/).
+ */
+final class Instances {
+
+	private Instances() {
+	}
+
+	static Path path(String instance) {
+		return Paths.get(System.getProperty("pap.instances", "../instances"), instance);
+	}
+
+	/**
+	 * Parses the text format, so the benchmarks never depend on a stale
+	 * binary sidecar.
+	 */
+	static PAPInstance read(String instance) throws IOException {
+		return PAPReader.readText(path(instance));
+	}
+
+}
@@ -0,0 +1,66 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import models.ConstructiveHeuristicType;
+import models.LocalSearchType;
+import models.Triple;
+import problems.pap.PAPInstance;
+import problems.pap.solvers.GRASP_PAP;
+import solutions.Solution;
+
+/**
+ * Macro benchmark of one GRASP iteration, the constructive heuristic followed
+ * by the local search, on every instance and for several values of alpha.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IterationBenchmark {
+
+	@Param({ "P50D50S1.pap", "P50D50S3.pap", "P50D50S5.pap",
+			"P70D70S1.pap", "P70D70S3.pap", "P70D70S5.pap",
+			"P70D100S6.pap", "P70D100S8.pap", "P70D100S10.pap",
+			"P100D150S10.pap", "P100D150S15.pap", "P100D150S20.pap" })
+	public String instance;
+
+	@Param({ "0.1", "0.5", "0.9" })
+	public double alpha;
+
+	@Param({ "FIRST_IMPROVING", "BEST_IMPROVING" })
+	public LocalSearchType localSearch;
+
+	private GRASP_PAP grasp;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		PAPInstance papInstance = Instances.read(instance);
+		grasp = new GRASP_PAP(alpha, 1, papInstance, localSearch, ConstructiveHeuristicType.DEFAULT);
+	}
+
+	@Benchmark
+	public Solution<Triple> iteration() {
+		// The local search improves the constructed solution in place
+		Solution<Triple> sol = grasp.defaultConstructiveHeuristic();
+		grasp.localSearch();
+		return sol;
+	}
+
+}
@@ -0,0 +1,65 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import problems.pap.PAPInstance;
+import problems.pap.PAPReader;
+
+/**
+ * Benchmarks of loading an instance, from the text format and from the
+ * binary sidecar. The sidecar is written to a temporary file, so the folder
+ * of the instances is left untouched.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReaderBenchmark {
+
+	@Param({ "P50D50S5.pap", "P70D100S6.pap", "P100D150S10.pap" })
+	public String instance;
+
+	private Path text, binary;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		text = Instances.path(instance);
+		binary = Files.createTempFile("bench", ".papb");
+		PAPReader.writeBinary(binary, PAPReader.readText(text));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(binary);
+	}
+
+	@Benchmark
+	public PAPInstance readText() throws IOException {
+		return PAPReader.readText(text);
+	}
+
+	@Benchmark
+	public PAPInstance readBinary() throws IOException {
+		return PAPReader.readBinary(binary);
+	}
+
+}
@@ -4,9 +4,14 @@
 package metaheuristics.grasp;
 
 import java.util.ArrayList;
-import java.util.Random;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import problems.Evaluator;
 import solutions.Solution;
@@ -28,9 +33,15 @@ public abstract class AbstractGRASP<E> {
 	public static boolean verbose = true;
 
 	/**
-	 * a random number generator
+	 * the master seed from which the random number streams are derived
 	 */
-	protected static Random rng = new Random(0);
+	protected long seed = 0;
+
+	/**
+	 * the random number generator of the current iteration, see
+	 * {@link #seedIteration(int)}
+	 */
+	protected SplittableRandom rng = new SplittableRandom(seed);
 
 	/**
 	 * the objective function being optimized
@@ -77,6 +88,58 @@ public abstract class AbstractGRASP<E> {
 	 */
 	protected ArrayList<E> RCL;
 
+	/**
+	 * buffer which receives the cost variations of a whole neighborhood
+	 */
+	private double[] deltas = new double[16];
+
+	/**
+	 * the number of worker threads used to run the GRASP iterations.
+	 */
+	protected int workers = 1;
+
+	/**
+	 * the stopping criterion of the GRASP, besides the number of iterations.
+	 * By default, a time limit of approximately 30 minutes.
+	 */
+	protected StopCriterion stopCriterion = StopCriterion.wallClock(1800);
+
+	/**
+	 * the progress of the run, shared with the workers of a parallel run.
+	 */
+	protected SearchProgress progress = new SearchProgress();
+
+	/**
+	 * the cache of local optima, shared with the workers of a parallel run,
+	 * or null if disabled.
+	 */
+	protected LocalOptimaCache<E> localOptima;
+
+	/**
+	 * the pool of elite solutions guiding the path relinking, shared with the
+	 * workers of a parallel run, or null if disabled.
+	 */
+	protected ElitePool<E> elite;
+
+	/**
+	 * the reactive choice of alpha, shared with the workers of a parallel
+	 * run, or null to use the fixed {@link #alpha}.
+	 */
+	protected ReactiveAlpha reactiveAlpha;
+
+	/**
+	 * the metrics of the run, shared with the workers of a parallel run, or
+	 * null if disabled, and the timers of the phases
+	 */
+	protected SearchMetrics metrics;
+	private SearchMetrics.Timer constructionTimer, localSearchTimer, intensificationTimer, pathRelinkingTimer;
+
+	/**
+	 * the convergence trace of the run, shared with the workers of a parallel
+	 * run, or null if disabled.
+	 */
+	protected TraceRecorder trace;
+
 	/**
 	 * Creates the Candidate List, which is an ArrayList of candidate elements
 	 * that can enter a solution.
@@ -119,6 +182,24 @@ public abstract class AbstractGRASP<E> {
 	 */
 	public abstract Solution<E> localSearch();
 
+	/**
+	 * Optional intensification phase, run after the local search on each
+	 * iteration, which may keep improving the current solution beyond its
+	 * local optimum. It does nothing by default.
+	 */
+	public void intensify() {
+	}
+
+	/**
+	 * Creates an independent copy of this GRASP, with the same parameters but
+	 * its own search state (candidate lists, current solution and evaluator
+	 * state), to be used as a worker by the parallel mode of {@link #solve()}.
+	 * The problem data may be shared, as long as it is read-only.
+	 * 
+	 * @return A new GRASP which can run concurrently with this one.
+	 */
+	protected abstract AbstractGRASP<E> newWorker();
+
 	/**
 	 * Constructor for the AbstractGRASP class.
 	 * 
@@ -151,32 +232,33 @@ public abstract class AbstractGRASP<E> {
 		currentCost = Double.POSITIVE_INFINITY;
 
 		/* Main loop, which repeats until the stopping criteria is reached. */
-		while (!constructiveStopCriteria()) {
+		while (!constructiveStopCriteria() && !shouldStop()) {
 
 			double maxCost = Double.NEGATIVE_INFINITY, minCost = Double.POSITIVE_INFINITY;
 			currentCost = ObjFunction.evaluate(currentSol);
 			updateCL();
 
 			/*
-			 * Explore all candidate elements to enter the solution, saving the
-			 * highest and lowest cost variation achieved by the candidates.
+			 * Evaluate all candidate elements to enter the solution at once,
+			 * saving the highest and lowest cost variation achieved by the
+			 * candidates.
 			 */
-			for (E c : CL) {
-				Double deltaCost = ObjFunction.evaluateInsertionCost(c, currentSol);
-				if (deltaCost < minCost)
-					minCost = deltaCost;
-				if (deltaCost > maxCost)
-					maxCost = deltaCost;
+			double[] deltaCosts = deltaBuffer(CL.size());
+			ObjFunction.evaluateInsertionCosts(CL, currentSol, deltaCosts);
+			for (int i = 0; i < CL.size(); i++) {
+				if (deltaCosts[i] < minCost)
+					minCost = deltaCosts[i];
+				if (deltaCosts[i] > maxCost)
+					maxCost = deltaCosts[i];
 			}
 
 			/*
 			 * Among all candidates, insert into the RCL those with the highest
 			 * performance using parameter alpha as threshold.
 			 */
-			for (E c : CL) {
-				Double deltaCost = ObjFunction.evaluateInsertionCost(c, currentSol);
-				if (deltaCost <= minCost + alpha * (maxCost - minCost)) {
-					RCL.add(c);
+			for (int i = 0; i < CL.size(); i++) {
+				if (deltaCosts[i] <= minCost + alpha * (maxCost - minCost)) {
+					RCL.add(CL.get(i));
 				}
 			}
 
@@ -203,48 +285,517 @@ public abstract class AbstractGRASP<E> {
 	 * @return The best feasible solution obtained throughout all iterations.
 	 */
 	public Solution<E> solve() {
-		/* Limitar o tempo em aproximadamente 30 min*/
-		Integer timeoutSeconds = 1800;
-		Timer timer = new Timer();
-		
-		class RemindTask extends TimerTask{
-			private Boolean timeout = false;
-			
-			public Boolean timeout() {
-				return this.timeout;
-			}
-			
-			public void run() {
-	            timer.cancel();
-	            timeout = true;
-	        }
-		};
-		
-		RemindTask task = new RemindTask();
-		// This function use milliseconds
-		timer.schedule(task, timeoutSeconds*1000);
-		
-		/* Execução */
-		incumbentSol = createEmptySol();
-		for (int i = 0; i < iterations; i++) {
-			constructiveHeuristic();
-			localSearch();
-			if (incumbentSol.cost < currentSol.cost) {
-				incumbentSol = new Solution<E>(currentSol);
-				if (verbose)
-					System.out.println("(Iter. " + i + ") BestSol = " + incumbentSol);
-			}
+		if (workers > 1)
+			return solveParallel();
+
+		progress.start();
+		if (metrics != null)
+			metrics.start();
+		if (trace != null)
+			trace.start();
+		progress.enter();
+		try {
+			/* Execução */
+			incumbentSol = createEmptySol();
+			for (int i = 0; i < iterations; i++) {
+				//Verifica o criterio de parada
+				if (shouldStop()) {
+					if (verbose)
+						System.out.println("Stopping criterion met at iteration " + i);
+					break;
+				}
 
-			//Verifica se deu o timeout
-			if(task.timeout()) {
-				System.out.println("Timeout");
-				break;
+				IterationEvent event = new IterationEvent();
+				event.begin();
+				seedIteration(i);
+				int alphaIndex = chooseAlpha();
+				construct();
+				double constructedCost = currentSol.cost;
+				improve();
+				relink();
+				recordAlpha(alphaIndex);
+				boolean improved = incumbentSol.cost < currentSol.cost;
+				if (improved) {
+					incumbentUpdated(i, incumbentSol.cost, currentSol.cost, alpha);
+					incumbentSol = currentSol.copy();
+					progress.improved(incumbentSol.cost);
+					if (verbose)
+						System.out.println("(Iter. " + i + ") BestSol = " + incumbentSol);
+				}
+				iterationDone();
+				iterationEnded(event, i, constructedCost, improved);
 			}
+		} finally {
+			progress.leave();
+		}
+		if (metrics != null)
+			metrics.finish();
+		return incumbentSol;
+	}
+
+	private void construct() {
+		long start = tick();
+		constructiveHeuristic();
+		tock(constructionTimer, start);
+	}
+
+	/**
+	 * Commits the flight recorder event of an iteration, if it is enabled.
+	 */
+	private void iterationEnded(IterationEvent event, int iteration, double constructedCost, boolean improved) {
+		if (!event.shouldCommit())
+			return;
+		event.iteration = iteration;
+		event.alpha = alpha;
+		event.constructedCost = constructedCost;
+		event.localOptimumCost = currentSol.cost;
+		event.improved = improved;
+		event.commit();
+	}
+
+	/**
+	 * Records an update of the best solution on the trace, and commits its
+	 * flight recorder event, if they are enabled.
+	 */
+	private void incumbentUpdated(int iteration, double previousCost, double cost, double alpha) {
+		if (trace != null)
+			trace.record(iteration, cost, alpha);
+		IncumbentUpdateEvent event = new IncumbentUpdateEvent();
+		if (!event.shouldCommit())
+			return;
+		event.iteration = iteration;
+		event.previousCost = previousCost;
+		event.cost = cost;
+		event.commit();
+	}
+
+	private void iterationDone() {
+		progress.iterationDone();
+		if (metrics != null)
+			metrics.iterationDone();
+	}
+
+	/**
+	 * @return the current instant, to be passed to {@link #tock}, or 0 if the
+	 *         metrics are disabled.
+	 */
+	protected long tick() {
+		return metrics != null ? System.nanoTime() : 0L;
+	}
+
+	/**
+	 * Records on a timer a phase which started at the given instant, if the
+	 * metrics are enabled.
+	 */
+	protected void tock(SearchMetrics.Timer timer, long start) {
+		if (timer != null)
+			timer.record(start);
+	}
+
+	/**
+	 * @param n
+	 *            the size of the neighborhood being evaluated.
+	 * @return a buffer, owned by this GRASP, with room for the cost variations
+	 *         of n candidates.
+	 */
+	protected double[] deltaBuffer(int n) {
+		if (deltas.length < n)
+			deltas = new double[Math.max(n, 2 * deltas.length)];
+		return deltas;
+	}
+
+	/**
+	 * Improves the constructed solution through the local search and the
+	 * intensification phase. When the cache of local optima is enabled and
+	 * the same solution was already constructed, leaving the same candidate
+	 * list, the local optimum reached from it is taken from the cache instead.
+	 */
+	protected void improve() {
+		if (localOptima == null) {
+			descend();
+			return;
+		}
+
+		Solution<E> optimum = localOptima.get(currentSol, CL);
+		if (optimum != null) {
+			currentSol = optimum;
+			return;
+		}
+
+		Solution<E> start = currentSol.copy();
+		ArrayList<E> candidates = new ArrayList<E>(CL);
+		descend();
+		// A descent cut short by the stopping criterion is not a local optimum
+		if (!progress.isStopped())
+			localOptima.put(start, candidates, currentSol, CL);
+	}
+
+	private void descend() {
+		long start = tick();
+		localSearch();
+		tock(localSearchTimer, start);
+		start = tick();
+		intensify();
+		tock(intensificationTimer, start);
+	}
+
+	/**
+	 * Path relinking phase, which explores the solutions between the current
+	 * local optimum and a guiding solution, leaving the best one found as the
+	 * current solution. It does nothing by default.
+	 * 
+	 * @param guide
+	 *            the guiding solution, which must not be modified.
+	 */
+	public void pathRelinking(Solution<E> guide) {
+	}
+
+	/**
+	 * @param sol
+	 *            a solution.
+	 * @return true if the solution is feasible, so it can join the elite
+	 *         pool; every solution is by default.
+	 */
+	protected boolean isFeasible(Solution<E> sol) {
+		return true;
+	}
+
+	/**
+	 * When the elite pool is enabled, relinks the current solution with a
+	 * member of the pool drawn at random and then offers it to the pool.
+	 */
+	protected void relink() {
+		if (elite == null || !isFeasible(currentSol))
+			return;
+		int size = elite.size();
+		if (size > 0 && !shouldStop()) {
+			long start = tick();
+			pathRelinking(elite.get(rng.nextInt(size)));
+			tock(pathRelinkingTimer, start);
+		}
+		if (isFeasible(currentSol))
+			elite.add(currentSol);
+	}
+
+	/**
+	 * In reactive mode, draws the alpha of the iteration.
+	 * 
+	 * @return the index of the value drawn, or -1 if alpha is fixed.
+	 */
+	protected int chooseAlpha() {
+		if (reactiveAlpha == null)
+			return -1;
+		int index = reactiveAlpha.sample(rng);
+		alpha = reactiveAlpha.getAlpha(index);
+		return index;
+	}
+
+	/**
+	 * In reactive mode, records the cost of the solution of the iteration for
+	 * the alpha it used, if the solution is feasible.
+	 */
+	protected void recordAlpha(int index) {
+		if (index >= 0 && isFeasible(currentSol))
+			reactiveAlpha.record(index, currentSol.cost);
+	}
+
+	/**
+	 * Checks the stopping criterion. It is cheap enough to be called inside
+	 * the constructive heuristic and the local search, so that a run stops
+	 * soon after the criterion is met; once met, it remains met for every
+	 * worker of the run.
+	 * 
+	 * @return true if the GRASP must stop.
+	 */
+	protected boolean shouldStop() {
+		if (progress.isStopped())
+			return true;
+		if (!stopCriterion.isMet(progress))
+			return false;
+		progress.stop();
+		return true;
+	}
+
+	/**
+	 * Parallel version of the GRASP mainframe. The iterations are handed out,
+	 * one at a time, to {@link #workers} workers created by
+	 * {@link #newWorker()} and run on a fork/join pool. The best solution is
+	 * shared by all workers and updated with compare-and-set, and the workers
+	 * stop as soon as the stopping criterion is met. Since each iteration
+	 * draws from its own random stream and ties are broken in favor of the
+	 * earliest iteration, a run limited by the number of iterations returns
+	 * the same solution as the sequential one, whatever the number of
+	 * workers.
+	 * 
+	 * This does not hold with the elite pool, nor in reactive mode: the guide
+	 * an iteration relinks with is drawn from the members added so far, and
+	 * its alpha from the probabilities learned from the iterations recorded
+	 * so far, which both depend on the order in which the workers complete
+	 * their iterations. With either of them, the result of a parallel run
+	 * changes with the number of workers and from run to run. The same goes
+	 * for a local search which carries state of its own from one iteration to
+	 * the next, such as the adaptive neighborhood order of the VND of
+	 * GRASP_PAP, since each worker learns only from the iterations it
+	 * happened to run.
+	 * 
+	 * @return The best feasible solution obtained throughout all iterations.
+	 */
+	protected Solution<E> solveParallel() {
+		progress.start();
+		if (metrics != null)
+			metrics.start();
+		if (trace != null)
+			trace.start();
+		final AtomicInteger nextIteration = new AtomicInteger();
+		final AtomicReference<Incumbent<E>> incumbent = new AtomicReference<Incumbent<E>>(
+				new Incumbent<E>(createEmptySol(), -1));
+
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int w = 0; w < workers; w++) {
+			final AbstractGRASP<E> worker = newWorker();
+			worker.seed = seed;
+			worker.stopCriterion = stopCriterion;
+			worker.progress = progress;
+			worker.localOptima = localOptima;
+			worker.elite = elite;
+			worker.reactiveAlpha = reactiveAlpha;
+			worker.setMetrics(metrics);
+			worker.trace = trace;
+			tasks.add(() -> {
+				progress.enter();
+				try {
+					int i;
+					while (!worker.shouldStop() && (i = nextIteration.getAndIncrement()) < iterations) {
+						IterationEvent event = new IterationEvent();
+						event.begin();
+						worker.seedIteration(i);
+						int alphaIndex = worker.chooseAlpha();
+						worker.construct();
+						double constructedCost = worker.currentSol.cost;
+						worker.improve();
+						worker.relink();
+						worker.recordAlpha(alphaIndex);
+						boolean improved = updateIncumbent(incumbent, worker.currentSol, i, worker.alpha);
+						worker.iterationDone();
+						worker.iterationEnded(event, i, constructedCost, improved);
+					}
+				} finally {
+					progress.leave();
+				}
+				return null;
+			});
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(workers);
+		try {
+			for (Future<Void> f : pool.invokeAll(tasks))
+				f.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			pool.shutdownNow();
 		}
 
+		if (metrics != null)
+			metrics.finish();
+		incumbentSol = incumbent.get().sol;
 		return incumbentSol;
 	}
 
+	/**
+	 * The best solution shared by the workers, with the iteration which found
+	 * it.
+	 */
+	private static final class Incumbent<E> {
+		final Solution<E> sol;
+		final int iteration;
+
+		Incumbent(Solution<E> sol, int iteration) {
+			this.sol = sol;
+			this.iteration = iteration;
+		}
+
+		boolean isWorseThan(Solution<E> other, int otherIteration) {
+			return sol.cost < other.cost || (sol.cost.equals(other.cost) && otherIteration < iteration);
+		}
+	}
+
+	/**
+	 * Replaces the shared best solution by a copy of the given solution if it
+	 * is better, or as good but found in an earlier iteration, retrying while
+	 * other workers update it concurrently.
+	 * 
+	 * @param alpha
+	 *            the alpha of the iteration which found the solution.
+	 * @return true if the shared best solution was replaced.
+	 */
+	private boolean updateIncumbent(AtomicReference<Incumbent<E>> incumbent, Solution<E> sol, int iteration,
+			double alpha) {
+		Incumbent<E> best = incumbent.get();
+		if (!best.isWorseThan(sol, iteration))
+			return false;
+
+		Incumbent<E> candidate = new Incumbent<E>(sol.copy(), iteration);
+		while (best.isWorseThan(candidate.sol, iteration)) {
+			if (incumbent.compareAndSet(best, candidate)) {
+				incumbentUpdated(iteration, best.sol.cost, candidate.sol.cost, alpha);
+				progress.improved(candidate.sol.cost);
+				if (verbose)
+					System.out.println("(Iter. " + iteration + ") BestSol = " + candidate.sol);
+				return true;
+			}
+			best = incumbent.get();
+		}
+		return false;
+	}
+
+	/**
+	 * Resets {@link #rng} to the random stream of an iteration. The stream
+	 * only depends on the master {@link #seed} and on the iteration number, so
+	 * each iteration draws the same numbers whichever thread runs it, and in
+	 * whichever order.
+	 * 
+	 * @param iteration
+	 *            the number of the GRASP iteration about to start.
+	 */
+	protected void seedIteration(int iteration) {
+		// SplitMix64 finalizer, so that consecutive iterations get unrelated streams
+		long z = seed + (iteration + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		rng = new SplittableRandom(z ^ (z >>> 31));
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public void setWorkers(int workers) {
+		this.workers = workers;
+	}
+
+	public void setStopCriterion(StopCriterion stopCriterion) {
+		this.stopCriterion = stopCriterion;
+	}
+
+	/**
+	 * @return the progress of the last run.
+	 */
+	public SearchProgress getProgress() {
+		return progress;
+	}
+
+	/**
+	 * Enables the cache of the local optima reached from each constructed
+	 * solution.
+	 * 
+	 * @param capacity
+	 *            the maximum number of local optima kept, 0 to disable the
+	 *            cache.
+	 */
+	public void setLocalOptimaCache(int capacity) {
+		this.localOptima = capacity > 0 ? new LocalOptimaCache<E>(capacity) : null;
+	}
+
+	/**
+	 * Enables the elite pool and the path relinking with its members. A
+	 * parallel run with the pool is not reproducible, see
+	 * {@link #solveParallel()}.
+	 * 
+	 * @param capacity
+	 *            the maximum number of elite solutions, 0 to disable the
+	 *            pool.
+	 * @param minDistance
+	 *            the minimum Hamming distance of a new elite solution to the
+	 *            other ones.
+	 */
+	public void setElitePool(int capacity, int minDistance) {
+		this.elite = capacity > 0 ? new ElitePool<E>(capacity, minDistance) : null;
+	}
+
+	/**
+	 * Enables the reactive mode, in which the alpha of each iteration is drawn
+	 * from a set of values with probabilities learned from the quality of the
+	 * solutions each value produced. A parallel run in reactive mode is not
+	 * reproducible, see {@link #solveParallel()}.
+	 * 
+	 * @param alphas
+	 *            the values of alpha, or null to use the fixed alpha.
+	 * @param period
+	 *            the number of iterations between updates of the
+	 *            probabilities.
+	 */
+	public void setReactiveAlpha(double[] alphas, int period) {
+		this.reactiveAlpha = alphas != null ? new ReactiveAlpha(alphas, period) : null;
+	}
+
+	/**
+	 * Enables the metrics of the phases of the run. Subclasses which time
+	 * phases of their own register their timers here.
+	 * 
+	 * @param metrics
+	 *            the metrics to update, or null to disable them.
+	 */
+	public void setMetrics(SearchMetrics metrics) {
+		this.metrics = metrics;
+		constructionTimer = metrics != null ? metrics.timer(SearchMetrics.CONSTRUCTION) : null;
+		localSearchTimer = metrics != null ? metrics.timer(SearchMetrics.LOCAL_SEARCH) : null;
+		intensificationTimer = metrics != null ? metrics.timer(SearchMetrics.INTENSIFICATION) : null;
+		pathRelinkingTimer = metrics != null ? metrics.timer(SearchMetrics.PATH_RELINKING) : null;
+	}
+
+	/**
+	 * @return the metrics of the run, or null if they are disabled.
+	 */
+	public SearchMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Enables the convergence trace, which records every improvement of the
+	 * best solution for time-to-target plots.
+	 * 
+	 * @param capacity
+	 *            the maximum number of improvements kept, 0 to disable the
+	 *            trace.
+	 */
+	public void setTrace(int capacity) {
+		this.trace = capacity > 0 ? new TraceRecorder(capacity) : null;
+	}
+
+	/**
+	 * @return the convergence trace of the last run, or null if it is
+	 *         disabled.
+	 */
+	public TraceRecorder getTrace() {
+		return trace;
+	}
+
+	/**
+	 * @return the reactive choice of alpha, with the learned distribution, or
+	 *         null if alpha is fixed.
+	 */
+	public ReactiveAlpha getReactiveAlpha() {
+		return reactiveAlpha;
+	}
+
+	/**
+	 * @return the elite pool, or null if it is disabled.
+	 */
+	public ElitePool<E> getElitePool() {
+		return elite;
+	}
+
+	/**
+	 * @return the cache of local optima, with its hit ratio, or null if it is
+	 *         disabled.
+	 */
+	public LocalOptimaCache<E> getLocalOptimaCache() {
+		return localOptima;
+	}
+
 	/**
 	 * A standard stopping criteria for the constructive heuristic is to repeat
 	 * until the incumbent solution improves by inserting a new candidate
@@ -0,0 +1,96 @@
+package metaheuristics.grasp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import solutions.Solution;
+
+/**
+ * Fixed-capacity pool of elite solutions, the best and most diverse local
+ * optima found so far, used as guides by path relinking. A solution enters
+ * the pool if it is better than every member, or if it is at least
+ * {@link #minDistance} away, in Hamming distance, from every member and,
+ * when the pool is full, better than its worst member. In that case it
+ * replaces, among the members worse than it, the most similar to it, so the
+ * pool keeps its diversity. Higher costs are better, as for the incumbent of
+ * {@link AbstractGRASP}. It is shared by the workers of a parallel run, so
+ * its members depend on the order in which the workers offer their solutions.
+ */
+public class ElitePool<E> {
+
+	private final int capacity;
+	private final int minDistance;
+	private final List<Solution<E>> members;
+
+	/**
+	 * @param capacity
+	 *            the maximum number of solutions of the pool.
+	 * @param minDistance
+	 *            the minimum distance, at least 1, of a new solution to the
+	 *            members of the pool.
+	 */
+	public ElitePool(int capacity, int minDistance) {
+		this.capacity = capacity;
+		this.minDistance = Math.max(1, minDistance);
+		this.members = new ArrayList<Solution<E>>(capacity);
+	}
+
+	/**
+	 * Offers a solution to the pool, which keeps a copy if it is accepted.
+	 * 
+	 * @param sol
+	 *            the solution.
+	 * @return true if the solution entered the pool.
+	 */
+	public synchronized boolean add(Solution<E> sol) {
+		boolean best = true;
+		int nearest = Integer.MAX_VALUE;
+		int closest = -1, closestDistance = Integer.MAX_VALUE;
+		for (int i = 0; i < members.size(); i++) {
+			Solution<E> member = members.get(i);
+			int distance = sol.distance(member);
+			if (distance == 0)
+				return false;
+			nearest = Math.min(nearest, distance);
+			if (member.cost >= sol.cost)
+				best = false;
+			else if (distance < closestDistance) {
+				closestDistance = distance;
+				closest = i;
+			}
+		}
+		if (!best && nearest < minDistance)
+			return false;
+
+		if (members.size() < capacity) {
+			members.add(sol.copy());
+			return true;
+		}
+		// Replace the most similar among the members worse than the solution
+		if (closest < 0)
+			return false;
+		members.set(closest, sol.copy());
+		return true;
+	}
+
+	/**
+	 * @param i
+	 *            the position of the member.
+	 * @return the member, which must not be modified.
+	 */
+	public synchronized Solution<E> get(int i) {
+		return members.get(i);
+	}
+
+	public synchronized int size() {
+		return members.size();
+	}
+
+	/**
+	 * @return the members of the pool, which must not be modified.
+	 */
+	public synchronized List<Solution<E>> getSolutions() {
+		return new ArrayList<Solution<E>>(members);
+	}
+
+}
@@ -0,0 +1,31 @@
+package metaheuristics.grasp;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event marking the replacement of the best solution of
+ * a GRASP run. It is disabled by default, see {@link IterationEvent}.
+ */
+@Name("metaheuristics.grasp.IncumbentUpdate")
+@Label("Incumbent Update")
+@Category({ "GRASP" })
+@Description("The best solution of the run was replaced by a better one")
+@Enabled(false)
+@StackTrace(false)
+public class IncumbentUpdateEvent extends jdk.jfr.Event {
+
+	@Label("Iteration")
+	public int iteration;
+
+	@Label("Previous Cost")
+	public double previousCost;
+
+	@Label("Cost")
+	public double cost;
+
+}
@@ -0,0 +1,41 @@
+package metaheuristics.grasp;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event spanning a GRASP iteration, from the start of
+ * the construction to the end of the path relinking. It is disabled by
+ * default; enable it in the recording settings, e.g. with
+ * {@code -XX:StartFlightRecording:settings=profile,+metaheuristics.grasp.Iteration#enabled=true}
+ * on JDK 17, or through a .jfc file.
+ */
+@Name("metaheuristics.grasp.Iteration")
+@Label("GRASP Iteration")
+@Category({ "GRASP" })
+@Description("A GRASP iteration: construction, local search, intensification and path relinking")
+@Enabled(false)
+@StackTrace(false)
+public class IterationEvent extends jdk.jfr.Event {
+
+	@Label("Iteration")
+	public int iteration;
+
+	@Label("Alpha")
+	public double alpha;
+
+	@Label("Constructed Cost")
+	public double constructedCost;
+
+	@Label("Local Optimum Cost")
+	public double localOptimumCost;
+
+	@Label("Improved")
+	@Description("Whether the iteration improved the best solution")
+	public boolean improved;
+
+}
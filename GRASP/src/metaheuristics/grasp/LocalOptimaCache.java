@@ -0,0 +1,131 @@
+package metaheuristics.grasp;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import solutions.Solution;
+
+/**
+ * Bounded cache, with least recently used eviction, mapping a start of the
+ * local search to the local optimum it reached. A start is the constructed
+ * solution together with the candidate list left by the construction, which
+ * the local search also explores, so two constructions which built the same
+ * solution but left different candidates are distinct starts. Since the
+ * constructive heuristic often rebuilds the same start, a repeated start is
+ * answered from the cache instead of running the same descent again. It is
+ * shared by the workers of a parallel run.
+ *
+ * The starts are looked up by their hash, the Zobrist hash of the solution
+ * combined with the hash of the candidate list, and compared in full on a
+ * hit, so a collision of hashes is only a miss.
+ */
+public class LocalOptimaCache<E> {
+
+	/**
+	 * A start of the local search and the local optimum it reached, with the
+	 * candidate list the descent left.
+	 */
+	private static final class Entry<E> {
+		final Solution<E> start;
+		final List<E> candidates;
+		final Solution<E> optimum;
+		final List<E> optimumCandidates;
+
+		Entry(Solution<E> start, List<E> candidates, Solution<E> optimum, List<E> optimumCandidates) {
+			this.start = start;
+			this.candidates = candidates;
+			this.optimum = optimum;
+			this.optimumCandidates = optimumCandidates;
+		}
+
+		boolean startsFrom(Solution<E> sol, List<E> cl) {
+			return start.equals(sol) && candidates.equals(cl);
+		}
+	}
+
+	private final LinkedHashMap<Long, Entry<E>> optima;
+	private long hits, misses;
+
+	/**
+	 * @param capacity
+	 *            the maximum number of local optima kept.
+	 */
+	public LocalOptimaCache(int capacity) {
+		this.optima = new LinkedHashMap<Long, Entry<E>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Entry<E>> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	private static <E> long hash(Solution<E> start, List<E> candidates) {
+		return start.getHash() * 31 + candidates.hashCode();
+	}
+
+	/**
+	 * Looks up the local optimum reached from a start and, if it is in the
+	 * cache, replaces the candidate list by the one the descent left.
+	 * 
+	 * @param start
+	 *            the constructed solution.
+	 * @param candidates
+	 *            the candidate list left by the construction.
+	 * @return a copy of the local optimum reached from the start, or null if
+	 *         it is not in the cache.
+	 */
+	public synchronized Solution<E> get(Solution<E> start, List<E> candidates) {
+		Entry<E> entry = optima.get(hash(start, candidates));
+		if (entry == null || !entry.startsFrom(start, candidates)) {
+			misses++;
+			return null;
+		}
+		hits++;
+		candidates.clear();
+		candidates.addAll(entry.optimumCandidates);
+		return entry.optimum.copy();
+	}
+
+	/**
+	 * @param start
+	 *            the constructed solution, which is kept and must no longer
+	 *            be modified.
+	 * @param candidates
+	 *            the candidate list left by the construction, which is kept
+	 *            and must no longer be modified.
+	 * @param optimum
+	 *            the local optimum reached from it, which is copied.
+	 * @param optimumCandidates
+	 *            the candidate list left by the descent, which is copied.
+	 */
+	public synchronized void put(Solution<E> start, List<E> candidates, Solution<E> optimum,
+			List<E> optimumCandidates) {
+		optima.put(hash(start, candidates),
+				new Entry<E>(start, candidates, optimum.copy(), new ArrayList<E>(optimumCandidates)));
+	}
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return the fraction of the lookups answered by the cache.
+	 */
+	public synchronized double getHitRatio() {
+		return hits + misses == 0 ? 0.0 : (double) hits / (hits + misses);
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "LocalOptimaCache: size=[" + optima.size() + "], hits=[" + hits + "], misses=[" + misses
+				+ "], hitRatio=[" + getHitRatio() + "]";
+	}
+
+}
@@ -0,0 +1,32 @@
+package metaheuristics.grasp;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event spanning one scan of a neighborhood by a local
+ * search. It is disabled by default, see {@link IterationEvent}.
+ */
+@Name("metaheuristics.grasp.LocalSearchPass")
+@Label("Local Search Pass")
+@Category({ "GRASP" })
+@Description("A scan of a neighborhood of the current solution")
+@Enabled(false)
+@StackTrace(false)
+public class LocalSearchPassEvent extends jdk.jfr.Event {
+
+	@Label("Neighborhood")
+	public String neighborhood;
+
+	@Label("Moves Scanned")
+	public long movesScanned;
+
+	@Label("Delta")
+	@Description("Cost variation of the best move found, negative if it improves, infinite if there is none")
+	public double delta;
+
+}
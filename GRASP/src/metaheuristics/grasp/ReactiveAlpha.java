@@ -0,0 +1,133 @@
+package metaheuristics.grasp;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Reactive choice of the alpha of the GRASP. Each iteration draws alpha from
+ * a discrete set, and every {@link #period} iterations the probability of
+ * each value is made proportional to q = (normalized average cost of the
+ * solutions it produced)^{@link #AMPLIFICATION}, where the costs are
+ * normalized between the worst and the best ones seen so far, so that values
+ * producing better solutions are drawn more often. Higher costs are better,
+ * as for the incumbent of {@link AbstractGRASP}. It is shared by the workers
+ * of a parallel run, which record their costs in the order they complete
+ * their iterations, so the probabilities then depend on that order.
+ */
+public class ReactiveAlpha {
+
+	/**
+	 * exponent which amplifies the differences between the averages
+	 */
+	public static final double AMPLIFICATION = 10.0;
+
+	/**
+	 * probability kept by every value, so that none of them is abandoned
+	 */
+	private static final double MIN_QUALITY = 1e-3;
+
+	private final double[] alphas;
+	private final double[] probabilities;
+	private final double[] sums;
+	private final long[] counts;
+	private final int period;
+
+	private double bestCost = Double.NEGATIVE_INFINITY, worstCost = Double.POSITIVE_INFINITY;
+	private int recorded;
+
+	/**
+	 * @param alphas
+	 *            the values of alpha.
+	 * @param period
+	 *            the number of iterations between updates of the
+	 *            probabilities.
+	 */
+	public ReactiveAlpha(double[] alphas, int period) {
+		this.alphas = alphas.clone();
+		this.probabilities = new double[alphas.length];
+		this.sums = new double[alphas.length];
+		this.counts = new long[alphas.length];
+		this.period = Math.max(1, period);
+		Arrays.fill(probabilities, 1.0 / alphas.length);
+	}
+
+	/**
+	 * Draws a value of alpha according to the current probabilities.
+	 * 
+	 * @param rng
+	 *            the random stream of the iteration.
+	 * @return the index of the value drawn.
+	 */
+	public synchronized int sample(SplittableRandom rng) {
+		double r = rng.nextDouble();
+		for (int i = 0; i < alphas.length - 1; i++) {
+			r -= probabilities[i];
+			if (r < 0)
+				return i;
+		}
+		return alphas.length - 1;
+	}
+
+	public double getAlpha(int index) {
+		return alphas[index];
+	}
+
+	/**
+	 * Records the cost of the solution of an iteration which used a value of
+	 * alpha, updating the probabilities at the end of each period.
+	 * 
+	 * @param index
+	 *            the index of the value used.
+	 * @param cost
+	 *            the cost of the solution.
+	 */
+	public synchronized void record(int index, double cost) {
+		sums[index] += cost;
+		counts[index]++;
+		bestCost = Math.max(bestCost, cost);
+		worstCost = Math.min(worstCost, cost);
+		if (++recorded % period == 0)
+			update();
+	}
+
+	private void update() {
+		double[] quality = new double[alphas.length];
+		double total = 0;
+		for (int i = 0; i < alphas.length; i++) {
+			// Values not tried yet are deemed as good as the best one
+			double normalized = 1.0;
+			if (counts[i] > 0 && bestCost > worstCost)
+				normalized = (sums[i] / counts[i] - worstCost) / (bestCost - worstCost);
+			quality[i] = Math.max(MIN_QUALITY, Math.pow(normalized, AMPLIFICATION));
+			total += quality[i];
+		}
+		for (int i = 0; i < alphas.length; i++)
+			probabilities[i] = quality[i] / total;
+	}
+
+	/**
+	 * @return the learned probability of each value of alpha.
+	 */
+	public synchronized double[] getProbabilities() {
+		return probabilities.clone();
+	}
+
+	/**
+	 * @return the number of iterations which used each value of alpha.
+	 */
+	public synchronized long[] getCounts() {
+		return counts.clone();
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder sb = new StringBuilder("ReactiveAlpha:");
+		for (int i = 0; i < alphas.length; i++) {
+			sb.append(" alpha=").append(alphas[i]).append(" p=").append(String.format("%.3f", probabilities[i]))
+					.append(" n=").append(counts[i]).append(" avg=")
+					.append(counts[i] == 0 ? "-" : String.format("%.1f", sums[i] / counts[i])).append(";");
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,222 @@
+package metaheuristics.grasp;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and timers of the phases of a GRASP run: how many times each phase
+ * ran and the nanoseconds it took, the moves evaluated and accepted by the
+ * local searches and the iterations completed. They are striped
+ * {@link LongAdder}s, so the workers of a parallel run update them with no
+ * contention, and they are only touched when the metrics are enabled through
+ * {@link AbstractGRASP#setMetrics(SearchMetrics)}.
+ *
+ * The timers are registered by name, once, when a solver is bound to the
+ * metrics, and kept by the solver, so the hot path never looks them up.
+ */
+public class SearchMetrics {
+
+	/**
+	 * names of the phases timed by {@link AbstractGRASP}
+	 */
+	public static final String CONSTRUCTION = "construction";
+	public static final String LOCAL_SEARCH = "localSearch";
+	public static final String INTENSIFICATION = "intensification";
+	public static final String PATH_RELINKING = "pathRelinking";
+
+	/**
+	 * Number of calls of a phase and nanoseconds spent in them.
+	 */
+	public static final class Timer {
+		private final String name;
+		private final LongAdder calls = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+
+		private Timer(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Records a call which started at the given instant.
+		 *
+		 * @param startNanos
+		 *            the value of {@link System#nanoTime()} when the call
+		 *            started.
+		 */
+		public void record(long startNanos) {
+			nanos.add(System.nanoTime() - startNanos);
+			calls.increment();
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getCalls() {
+			return calls.sum();
+		}
+
+		public long getNanos() {
+			return nanos.sum();
+		}
+
+		private void reset() {
+			calls.reset();
+			nanos.reset();
+		}
+	}
+
+	private final Map<String, Timer> timers = new LinkedHashMap<String, Timer>();
+
+	private final LongAdder iterations = new LongAdder();
+	private final LongAdder movesEvaluated = new LongAdder();
+	private final LongAdder movesAccepted = new LongAdder();
+
+	private volatile long startNanos, elapsedNanos = -1;
+
+	/**
+	 * @param name
+	 *            the name of the phase.
+	 * @return the timer of the phase, created on the first call.
+	 */
+	public synchronized Timer timer(String name) {
+		return timers.computeIfAbsent(name, Timer::new);
+	}
+
+	/**
+	 * Resets every counter and starts counting the time of a run.
+	 */
+	public synchronized void start() {
+		for (Timer timer : timers.values())
+			timer.reset();
+		iterations.reset();
+		movesEvaluated.reset();
+		movesAccepted.reset();
+		elapsedNanos = -1;
+		startNanos = System.nanoTime();
+	}
+
+	/**
+	 * Stops counting the time of the run.
+	 */
+	public void finish() {
+		elapsedNanos = System.nanoTime() - startNanos;
+	}
+
+	public void iterationDone() {
+		iterations.increment();
+	}
+
+	public void movesEvaluated(long moves) {
+		movesEvaluated.add(moves);
+	}
+
+	public void moveAccepted() {
+		movesAccepted.increment();
+	}
+
+	public long getIterations() {
+		return iterations.sum();
+	}
+
+	public long getMovesEvaluated() {
+		return movesEvaluated.sum();
+	}
+
+	public long getMovesAccepted() {
+		return movesAccepted.sum();
+	}
+
+	/**
+	 * @return the duration of the run, up to now if it is not finished.
+	 */
+	public long getElapsedNanos() {
+		long elapsed = elapsedNanos;
+		return elapsed >= 0 ? elapsed : System.nanoTime() - startNanos;
+	}
+
+	/**
+	 * @return the timers registered, in order of registration.
+	 */
+	public synchronized List<Timer> getTimers() {
+		return new ArrayList<Timer>(timers.values());
+	}
+
+	private double perSecond(long count, long elapsed) {
+		return elapsed > 0 ? count * 1e9 / elapsed : 0.0;
+	}
+
+	/**
+	 * Writes the metrics as CSV, one line per counter and per timer, with the
+	 * columns metric, count, nanos and per_second (count per second of the
+	 * run).
+	 */
+	public void writeCsv(Writer writer) throws IOException {
+		long elapsed = getElapsedNanos();
+		writer.write("metric,count,nanos,per_second\n");
+		writer.write("elapsed,," + elapsed + ",\n");
+		writeCsvCounter(writer, "iterations", getIterations(), elapsed);
+		writeCsvCounter(writer, "movesEvaluated", getMovesEvaluated(), elapsed);
+		writeCsvCounter(writer, "movesAccepted", getMovesAccepted(), elapsed);
+		for (Timer timer : getTimers()) {
+			long calls = timer.getCalls();
+			writer.write(timer.getName() + "," + calls + "," + timer.getNanos() + ","
+					+ format(perSecond(calls, elapsed)) + "\n");
+		}
+	}
+
+	private void writeCsvCounter(Writer writer, String name, long count, long elapsed) throws IOException {
+		writer.write(name + "," + count + ",," + format(perSecond(count, elapsed)) + "\n");
+	}
+
+	/**
+	 * Writes the metrics as a JSON object with the duration of the run, the
+	 * counters with their rates and the timers.
+	 */
+	public void writeJson(Writer writer) throws IOException {
+		long elapsed = getElapsedNanos();
+		writer.write("{\n  \"elapsedNanos\": " + elapsed + ",\n  \"counters\": {\n");
+		writeJsonCounter(writer, "iterations", getIterations(), elapsed, ",");
+		writeJsonCounter(writer, "movesEvaluated", getMovesEvaluated(), elapsed, ",");
+		writeJsonCounter(writer, "movesAccepted", getMovesAccepted(), elapsed, "");
+		writer.write("  },\n  \"timers\": {");
+		List<Timer> list = getTimers();
+		for (int i = 0; i < list.size(); i++) {
+			Timer timer = list.get(i);
+			long calls = timer.getCalls(), nanos = timer.getNanos();
+			writer.write((i > 0 ? "," : "") + "\n    \"" + timer.getName() + "\": {\"calls\": " + calls
+					+ ", \"nanos\": " + nanos + ", \"meanNanos\": " + format(calls > 0 ? (double) nanos / calls : 0.0)
+					+ "}");
+		}
+		writer.write("\n  }\n}\n");
+	}
+
+	private void writeJsonCounter(Writer writer, String name, long count, long elapsed, String separator)
+			throws IOException {
+		writer.write("    \"" + name + "\": {\"count\": " + count + ", \"perSecond\": "
+				+ format(perSecond(count, elapsed)) + "}" + separator + "\n");
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+
+	@Override
+	public String toString() {
+		double seconds = getElapsedNanos() / 1e9;
+		StringBuilder sb = new StringBuilder("SearchMetrics: iterations=[" + getIterations() + "], movesEvaluated=["
+				+ getMovesEvaluated() + "], movesAccepted=[" + getMovesAccepted() + "], seconds=["
+				+ format(seconds) + "]");
+		for (Timer timer : getTimers())
+			sb.append(", ").append(timer.getName()).append("=[").append(format(timer.getNanos() / 1e6))
+					.append(" ms]");
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,133 @@
+package metaheuristics.grasp;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of a GRASP run, as seen by its {@link StopCriterion}. A single
+ * instance is shared by all the workers of a parallel run, so every field is
+ * safe to read and update concurrently.
+ */
+public class SearchProgress {
+
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	private volatile long startNanos;
+
+	/**
+	 * threads currently running the search, with their CPU time when they
+	 * entered it, and the CPU time used by the threads which already left it
+	 */
+	private final Map<Thread, Long> running = new ConcurrentHashMap<Thread, Long>();
+	private final AtomicLong leftCpuNanos = new AtomicLong();
+
+	/**
+	 * number of GRASP iterations completed
+	 */
+	private final AtomicLong iterations = new AtomicLong();
+
+	/**
+	 * number of iterations completed when the best solution last improved
+	 */
+	private volatile long lastImprovement;
+
+	/**
+	 * cost of the best solution, NaN while there is none
+	 */
+	private volatile double incumbentCost = Double.NaN;
+
+	/**
+	 * set once a stopping criterion is met, so that every worker stops
+	 */
+	private volatile boolean stopped;
+
+	/**
+	 * Resets the progress and starts counting the time.
+	 */
+	public void start() {
+		iterations.set(0);
+		lastImprovement = 0;
+		incumbentCost = Double.NaN;
+		stopped = false;
+		running.clear();
+		leftCpuNanos.set(0);
+		startNanos = System.nanoTime();
+	}
+
+	/**
+	 * Starts counting the CPU time of the calling thread, which is about to
+	 * run the search, or part of it.
+	 */
+	public void enter() {
+		running.put(Thread.currentThread(), THREADS.getCurrentThreadCpuTime());
+	}
+
+	/**
+	 * Stops counting the CPU time of the calling thread, keeping what it used
+	 * since {@link #enter()}.
+	 */
+	public void leave() {
+		Long entered = running.remove(Thread.currentThread());
+		if (entered != null)
+			leftCpuNanos.addAndGet(THREADS.getCurrentThreadCpuTime() - entered);
+	}
+
+	public void iterationDone() {
+		iterations.incrementAndGet();
+	}
+
+	/**
+	 * Records that the best solution was replaced by one with the given cost.
+	 */
+	public synchronized void improved(double cost) {
+		if (Double.isNaN(incumbentCost) || incumbentCost < cost) {
+			incumbentCost = cost;
+			lastImprovement = iterations.get();
+		}
+	}
+
+	public void stop() {
+		stopped = true;
+	}
+
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	public long getIterations() {
+		return iterations.get();
+	}
+
+	public long getIterationsWithoutImprovement() {
+		return iterations.get() - lastImprovement;
+	}
+
+	public double getIncumbentCost() {
+		return incumbentCost;
+	}
+
+	public long getElapsedNanos() {
+		return System.nanoTime() - startNanos;
+	}
+
+	/**
+	 * @return the CPU time used since the start by the threads which ran the
+	 *         search, between their {@link #enter()} and {@link #leave()}.
+	 *         Unlike the CPU time of the process, it does not count other
+	 *         runs or experiments sharing the JVM; neither does it count the
+	 *         pool of a parallel neighborhood scan.
+	 */
+	public long getCpuNanos() {
+		long total = leftCpuNanos.get();
+		for (Map.Entry<Thread, Long> thread : running.entrySet()) {
+			long now = THREADS.getThreadCpuTime(thread.getKey().getId());
+			if (now >= 0)
+				total += now - thread.getValue();
+		}
+		return total;
+	}
+
+}
@@ -0,0 +1,79 @@
+package metaheuristics.grasp;
+
+/**
+ * Stopping criterion of a GRASP run. It is checked between iterations and,
+ * cooperatively, inside the constructive heuristic and the local search, so
+ * a run stops soon after the criterion is met even in the middle of a long
+ * iteration. Criteria are combined with {@link #or(StopCriterion)} or
+ * {@link #anyOf(StopCriterion...)}.
+ */
+@FunctionalInterface
+public interface StopCriterion {
+
+	/**
+	 * @param progress
+	 *            the progress of the run.
+	 * @return true if the run must stop.
+	 */
+	boolean isMet(SearchProgress progress);
+
+	/**
+	 * @return a criterion met when either this or the other one is.
+	 */
+	default StopCriterion or(StopCriterion other) {
+		return anyOf(this, other);
+	}
+
+	/**
+	 * @return a criterion met when any of the given ones is.
+	 */
+	static StopCriterion anyOf(StopCriterion... criteria) {
+		return progress -> {
+			for (StopCriterion criterion : criteria)
+				if (criterion.isMet(progress))
+					return true;
+			return false;
+		};
+	}
+
+	/**
+	 * @return a criterion met after the given wall-clock time.
+	 */
+	static StopCriterion wallClock(double seconds) {
+		long nanos = (long) (seconds * 1e9);
+		return progress -> progress.getElapsedNanos() >= nanos;
+	}
+
+	/**
+	 * @return a criterion met after the threads running the search used the
+	 *         given CPU time, see {@link SearchProgress#getCpuNanos()}.
+	 */
+	static StopCriterion cpuTime(double seconds) {
+		long nanos = (long) (seconds * 1e9);
+		return progress -> progress.getCpuNanos() >= nanos;
+	}
+
+	/**
+	 * @return a criterion met after the given number of GRASP iterations.
+	 */
+	static StopCriterion iterations(long iterations) {
+		return progress -> progress.getIterations() >= iterations;
+	}
+
+	/**
+	 * @return a criterion met when the best solution reaches the target cost,
+	 *         under the same comparison used to update the best solution.
+	 */
+	static StopCriterion target(double cost) {
+		return progress -> progress.getIncumbentCost() >= cost;
+	}
+
+	/**
+	 * @return a criterion met when the best solution did not improve in the
+	 *         last given number of iterations.
+	 */
+	static StopCriterion stagnation(long iterations) {
+		return progress -> progress.getIterationsWithoutImprovement() >= iterations;
+	}
+
+}
@@ -0,0 +1,115 @@
+package metaheuristics.grasp;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Convergence trace of a GRASP run, for time-to-target plots: for every
+ * improvement of the best solution, the nanoseconds since the start of the
+ * run, the iteration, the new cost, the alpha of the iteration and the
+ * thread which found it.
+ *
+ * The records are kept in a ring buffer allocated up front, so recording
+ * never allocates; once it is full, the oldest records are overwritten. Each
+ * record claims its slot with an atomic counter, so the workers of a parallel
+ * run record concurrently without locking. The trace must only be read once
+ * the run is over.
+ */
+public class TraceRecorder {
+
+	private final int capacity;
+	private final long[] nanos;
+	private final int[] iterations;
+	private final double[] costs;
+	private final double[] alphas;
+	private final long[] threads;
+
+	/**
+	 * number of records made since the start, including the overwritten ones
+	 */
+	private final AtomicLong recorded = new AtomicLong();
+
+	private volatile long startNanos;
+
+	/**
+	 * @param capacity
+	 *            the maximum number of records kept.
+	 */
+	public TraceRecorder(int capacity) {
+		this.capacity = capacity;
+		nanos = new long[capacity];
+		iterations = new int[capacity];
+		costs = new double[capacity];
+		alphas = new double[capacity];
+		threads = new long[capacity];
+	}
+
+	/**
+	 * Clears the trace and starts counting the time of a run.
+	 */
+	public void start() {
+		recorded.set(0);
+		startNanos = System.nanoTime();
+	}
+
+	/**
+	 * Records an improvement of the best solution.
+	 *
+	 * @param iteration
+	 *            the iteration which found the solution.
+	 * @param cost
+	 *            the cost of the solution.
+	 * @param alpha
+	 *            the alpha used by the iteration.
+	 */
+	public void record(int iteration, double cost, double alpha) {
+		long elapsed = System.nanoTime() - startNanos;
+		int slot = (int) (recorded.getAndIncrement() % capacity);
+		nanos[slot] = elapsed;
+		iterations[slot] = iteration;
+		costs[slot] = cost;
+		alphas[slot] = alpha;
+		threads[slot] = Thread.currentThread().getId();
+	}
+
+	/**
+	 * @return the number of records kept.
+	 */
+	public int size() {
+		return (int) Math.min(recorded.get(), capacity);
+	}
+
+	/**
+	 * @return the number of records overwritten because the buffer was full.
+	 */
+	public long getDropped() {
+		return Math.max(0, recorded.get() - capacity);
+	}
+
+	/**
+	 * Writes the records kept, oldest first, as CSV with the columns
+	 * instance, elapsed_ns, iteration, cost, alpha and thread. The instance
+	 * column matches the one of PLI/results/results_all.csv, so the costs can
+	 * be compared with its bounds Z_lb and Z_ub.
+	 *
+	 * @param instance
+	 *            the name of the instance, repeated on every line.
+	 */
+	public void writeCsv(Writer writer, String instance) throws IOException {
+		writer.write("instance,elapsed_ns,iteration,cost,alpha,thread\n");
+		long total = recorded.get();
+		for (long r = Math.max(0, total - capacity); r < total; r++) {
+			int slot = (int) (r % capacity);
+			writer.write(instance + "," + nanos[slot] + "," + iterations[slot] + ","
+					+ String.format(Locale.ROOT, "%.1f,%.3f", costs[slot], alphas[slot]) + "," + threads[slot] + "\n");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "TraceRecorder: size=[" + size() + "], dropped=[" + getDropped() + "]";
+	}
+
+}
@@ -1,5 +1,28 @@
 package models;
 
 public enum LocalSearchType {
-	FIRST_IMPROVING, BEST_IMPROVING
+	FIRST_IMPROVING, BEST_IMPROVING,
+	/**
+	 * best improving, with each neighborhood scanned in parallel
+	 */
+	PARALLEL_BEST_IMPROVING,
+	/**
+	 * best improving over the reassignments of a discipline, with all its
+	 * periods, to another professor
+	 */
+	REASSIGN_PERIODS,
+	/**
+	 * best improving over the swaps of the professors of two disciplines
+	 */
+	PROFESSOR_SWAP,
+	/**
+	 * reassignments, plus relocations of single classes to less crowded
+	 * periods whenever no reassignment improves
+	 */
+	RELOCATE,
+	/**
+	 * Variable Neighborhood Descent over every neighborhood, the cheapest and
+	 * most successful first
+	 */
+	VND
 }
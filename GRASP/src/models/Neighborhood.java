@@ -0,0 +1,29 @@
+package models;
+
+/**
+ * Neighborhoods of the PAP local search, in increasing order of the number of
+ * moves they evaluate, which is the initial order of the Variable
+ * Neighborhood Descent.
+ */
+public enum Neighborhood {
+	/**
+	 * insertions and removals of triples
+	 */
+	INSERT_REMOVE,
+	/**
+	 * relocations of a class to a less crowded period
+	 */
+	RELOCATE,
+	/**
+	 * reassignments of a discipline to another professor
+	 */
+	REASSIGN,
+	/**
+	 * exchanges of a triple of the solution by a candidate
+	 */
+	EXCHANGE,
+	/**
+	 * swaps of the professors of two disciplines
+	 */
+	SWAP
+}
@@ -0,0 +1,18 @@
+package models;
+
+/**
+ * Constraints of the PAP model, identified by their number in the
+ * formulation.
+ */
+public enum PAPConstraint {
+	/** (1) each discipline is taught by at most one professor */
+	ALLOCATION,
+	/** (3) each allocated discipline has exactly hd periods */
+	PERIODS,
+	/** (4) at most S classes in each period */
+	ROOMS,
+	/** (5) and (7) professors only teach in available periods, one class at a time */
+	AVAILABILITY,
+	/** (6) at most H classes for each professor */
+	WORKLOAD
+}
@@ -1,45 +1,80 @@
 package models;
 
-public class Triple {
-    private Integer p;
-    private Integer d;
-    private Integer t;
+/**
+ * Immutable triple (p, d, t). Each component must lie in [0, 2^21), so that
+ * the triple can be packed into a single long key, which is what the
+ * primitive solution sets store.
+ */
+public final class Triple {
+    private static final int BITS = 21;
+    private static final long MASK = (1L << BITS) - 1;
+
+    private final int p;
+    private final int d;
+    private final int t;
     
-    public Triple(Integer p, Integer d, Integer t) {
+    public Triple(int p, int d, int t) {
         this.p = p;
         this.d = d;
         this.t = t;
     }
-    public Integer getP() {
+    public int getP() {
         return p;
     }
-    public Integer getD() {
+    public int getD() {
         return d;
     }
-    public Integer getT() {
+    public int getT() {
         return t;
     }
-    public void setP(Integer p) {
-        this.p = p;
+
+    /**
+     * @return the key packing this triple.
+     */
+    public long key() {
+        return pack(p, d, t);
     }
-    public void setD(Integer d) {
-        this.d = d;
+
+    public static long pack(int p, int d, int t) {
+        return ((long) p << (2 * BITS)) | ((long) d << BITS) | t;
     }
-    public void setT(Integer t) {
-        this.t = t;
+
+    public static int p(long key) {
+        return (int) (key >>> (2 * BITS));
+    }
+
+    public static int d(long key) {
+        return (int) ((key >>> BITS) & MASK);
+    }
+
+    public static int t(long key) {
+        return (int) (key & MASK);
+    }
+
+    /**
+     * @return the triple packed into the given key.
+     */
+    public static Triple of(long key) {
+        return new Triple(p(key), d(key), t(key));
     }
 
     @Override
     public boolean equals(Object obj) {
         if(obj instanceof Triple){
-            return this.p.equals(((Triple) obj).getP()) && this.d.equals(((Triple) obj).getD()) && this.t.equals(((Triple) obj).getT());
+            Triple other = (Triple) obj;
+            return this.p == other.p && this.d == other.d && this.t == other.t;
         }
         else
             return false;
     }
 
+    @Override
+    public int hashCode() {
+        return Long.hashCode(key());
+    }
+
     @Override
     public String toString() {
-        return "(" + this.getP().toString() + "," + this.getD().toString() + "," + this.getT().toString() + ")";
+        return "(" + this.p + "," + this.d + "," + this.t + ")";
     }
-}
\ No newline at end of file
+}
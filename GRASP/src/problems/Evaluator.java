@@ -1,5 +1,7 @@
 package problems;
 
+import java.util.Collection;
+
 import solutions.Solution;
 
 /**
@@ -74,13 +76,91 @@ public interface Evaluator<E> {
 	 * @return the cost variation resulting from the elements exchange.
 	 */
 	public abstract Double evaluateExchangeCost(E elemIn, E elemOut, Solution<E> sol);
-	
-	public abstract Integer getValue(String key);
-	
-	public abstract Integer[][] getApd();
 
-	public abstract Integer getHd(int d);
+	/**
+	 * Primitive version of {@link #evaluateInsertionCost(Object, Solution)},
+	 * which evaluators can override to avoid boxing the result.
+	 */
+	public default double evaluateInsertionDelta(E elem, Solution<E> sol) {
+		return evaluateInsertionCost(elem, sol);
+	}
 
-	public abstract Integer[] getRpt(int p);
+	/**
+	 * Primitive version of {@link #evaluateRemovalCost(Object, Solution)},
+	 * which evaluators can override to avoid boxing the result.
+	 */
+	public default double evaluateRemovalDelta(E elem, Solution<E> sol) {
+		return evaluateRemovalCost(elem, sol);
+	}
+
+	/**
+	 * Primitive version of
+	 * {@link #evaluateExchangeCost(Object, Object, Solution)}, which
+	 * evaluators can override to avoid boxing the result.
+	 */
+	public default double evaluateExchangeDelta(E elemIn, E elemOut, Solution<E> sol) {
+		return evaluateExchangeCost(elemIn, elemOut, sol);
+	}
+
+	/**
+	 * Evaluates the cost variation of inserting each of the given elements
+	 * into a solution. Evaluators can override it to prepare the evaluation
+	 * once for the whole neighborhood.
+	 * 
+	 * @param elems
+	 *            the elements under consideration for insertion.
+	 * @param sol
+	 *            the solution for which the insertions are being evaluated.
+	 * @param deltas
+	 *            array, with at least elems.size() positions, which receives
+	 *            the cost variation of each element, in iteration order.
+	 */
+	public default void evaluateInsertionCosts(Collection<E> elems, Solution<E> sol, double[] deltas) {
+		int i = 0;
+		for (E elem : elems)
+			deltas[i++] = evaluateInsertionDelta(elem, sol);
+	}
+
+	/**
+	 * Evaluates the cost variation of removing each of the given elements from
+	 * a solution. Evaluators can override it to prepare the evaluation once
+	 * for the whole neighborhood.
+	 * 
+	 * @param elems
+	 *            the elements under consideration for removal.
+	 * @param sol
+	 *            the solution for which the removals are being evaluated.
+	 * @param deltas
+	 *            array, with at least elems.size() positions, which receives
+	 *            the cost variation of each element, in iteration order.
+	 */
+	public default void evaluateRemovalCosts(Collection<E> elems, Solution<E> sol, double[] deltas) {
+		int i = 0;
+		for (E elem : elems)
+			deltas[i++] = evaluateRemovalDelta(elem, sol);
+	}
+
+	/**
+	 * Evaluates the cost variation of exchanging an element considered to
+	 * enter a solution with each of the given elements considered for removal.
+	 * Evaluators can override it to prepare the evaluation once for the whole
+	 * neighborhood.
+	 * 
+	 * @param elemIn
+	 *            the element under consideration for insertion.
+	 * @param elemsOut
+	 *            the elements under consideration for removal.
+	 * @param sol
+	 *            the solution for which the exchanges are being evaluated.
+	 * @param deltas
+	 *            array, with at least elemsOut.size() positions, which
+	 *            receives the cost variation of each exchange, in iteration
+	 *            order.
+	 */
+	public default void evaluateExchangeCosts(E elemIn, Collection<E> elemsOut, Solution<E> sol, double[] deltas) {
+		int i = 0;
+		for (E elemOut : elemsOut)
+			deltas[i++] = evaluateExchangeDelta(elemIn, elemOut, sol);
+	}
 
 }
@@ -1,28 +1,23 @@
 package problems.pap;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.Reader;
-import java.io.StreamTokenizer;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Random;
-import java.util.Set;
+import java.util.Collection;
 
-import models.Key;
+import models.PAPConstraint;
 import models.Triple;
 import problems.Evaluator;
 import solutions.Solution;
+import solutions.TripleSolution;
 
 
 /*
- * This class has 3 main goals
- * 	1) Load and storage problem instance;
- *  2) Compute objective value;
- *  3) Validate solution;
+ * This class has 2 main goals
+ *  1) Compute objective value;
+ *  2) Validate solution;
+ * The problem instance is loaded and stored by PAPInstance, which is
+ * immutable and can be shared, while each PAP keeps the mutable state
+ * used by the evaluation and must be owned by a single solver.
  * 
  */
 
@@ -34,21 +29,32 @@ public class PAP implements Evaluator<Triple> {
 	public final Integer size;
 
 	/**
-	 * The array of numbers representing the domain.
+	 * The instance being solved.
 	 */
-	public final Double[][][] variables;
+	public final PAPInstance instance;
 
+	/**
+	 * Penalty of each discipline without a professor in the objective
+	 * function.
+	 */
+	public static final int UNALLOCATED_PENALTY = 100;
+
+	/**
+	 * Incremental state used to evaluate feasibility and moves in O(1).
+	 */
+	protected final PAPDeltaEvaluator delta;
 
-	public static HashMap<String, Integer> values;
-	public Integer[] hd;
-	public Integer[][] apd;
-	public Integer[][] rpt;
+	/**
+	 * Buffer with the professor allocated to each discipline, reused by
+	 * {@link #evaluatePAP(Solution)}.
+	 */
+	private final int[] courses;
 
 
 	/**
-	 * The constructor for QuadracticBinaryFunction class. The filename of the
-	 * input for setting matrix of coefficients A of the PAP. The dimension of
-	 * the array of variables x is returned from the {@link #readInput} method.
+	 * The constructor for the PAP class. The filename of the input for
+	 * setting the instance of the PAP, which is read through
+	 * {@link PAPInstance#read(String)}.
 	 * 
 	 * @param filename
 	 *            Name of the file containing the input for setting the PAP.
@@ -56,25 +62,21 @@ public class PAP implements Evaluator<Triple> {
 	 *             Necessary for I/O operations.
 	 */
 	public PAP(String filename) throws IOException {
-		size = readInput(filename);
-		variables = allocateVariables();
+		this(PAPInstance.read(filename));
 	}
 
 	/**
-	 * Evaluates the value of a solution by transforming it into a vector. This
-	 * is required to perform the matrix multiplication which defines a PAP.
+	 * The constructor for the PAP class from an instance already loaded,
+	 * which may be shared with other solvers.
 	 * 
-	 * @param sol
-	 *            the solution which will be evaluated.
-	 */
-	public void setVariables(Solution<Triple> sol) {
-		resetVariables();
-		if (!sol.isEmpty()) {
-			for (Triple elem : sol) {
-				variables[elem.getP()][elem.getD()][elem.getT()] = 1.0;
-			}
-		}
-
+	 * @param instance
+	 *            The instance of the PAP.
+	 */
+	public PAP(PAPInstance instance) {
+		this.instance = instance;
+		size = instance.getDomainSize();
+		delta = new PAPDeltaEvaluator(instance);
+		courses = new int[instance.D];
 	}
 
 	/*
@@ -87,75 +89,42 @@ public class PAP implements Evaluator<Triple> {
 		return size;
 	}
 	
-	public Integer getValue(String key) {
-		return values.get(key);
-	}
-	
-	private HashMap<Integer, Integer> sumOneToValue(HashMap<Integer, Integer> map, Integer key) {
-		Integer value = map.containsKey(key)?  map.get(key) : 0;
-		value += 1;
-		map.put(key, value);
-		return map;
-	}
-	
+	/**
+	 * Checks whether a solution satisfies every constraint of the model. The
+	 * counters of the incremental state are reused, so no memory is allocated
+	 * and, if the solution was already synchronized, the check is O(1).
+	 * 
+	 * @param sol
+	 *            the solution being validated.
+	 * @return true if the solution is feasible.
+	 */
 	public boolean validate(Solution<Triple> sol) {
-		
-		HashMap<Integer, Set<Integer>> allocations = new HashMap<Integer, Set<Integer>>();
-		HashMap<Integer, Integer> periods = new HashMap<Integer, Integer>();
-		HashMap<Integer, Integer> workloads = new HashMap<Integer, Integer>();
-		HashMap<Integer, Integer> rooms = new HashMap<Integer, Integer>();
-		HashMap<Key, Integer> restrictions = new HashMap<Key, Integer>();
-		
-		// Process solution and extract information
-		for (Triple triple : sol) {
-			int p = triple.getP(), d = triple.getD(), t = triple.getT();
-			
-			Set<Integer> set = allocations.containsKey(d)?  allocations.get(d) : new HashSet<Integer>();
-			set.add(p);
-			allocations.put(d, set);
-			
-			periods = sumOneToValue(periods, d);
-			workloads = sumOneToValue(workloads, p);
-			rooms = sumOneToValue(rooms, t);
-			
-			Key key = new Key(p, t);
-			Integer countClasses = restrictions.containsKey(key)?  restrictions.get(key) : 0;
-			restrictions.put(key, countClasses + 1);
-		}
-
-		// Problem constraint 1
-		for(Map.Entry<Integer, Set<Integer>> entry : allocations.entrySet()) {
-		    // Check if has more than one professor
-			if (entry.getValue().size() > 1)
-		    	return false;
-		}
-
-		// Problem constraint 3
-		for(Map.Entry<Integer, Integer> entry : periods.entrySet()) {
-		    // Check if has more than one professor
-			if (entry.getValue() != hd[entry.getKey()])
-		    	return false;
-		}
-		
-		// Problem constraint 4
-		for (Map.Entry<Integer, Integer> entry : rooms.entrySet())
-			if (entry.getValue() > values.get("S"))
-				return false;
-
-		// Problem constraint 6
-		for (Map.Entry<Integer, Integer> entry : workloads.entrySet())
-			if (entry.getValue() > values.get("H"))
-				return false;
+		delta.sync(sol);
+		return delta.isFeasible();
+	}
 
-	    // Problem constraint 5 e 7
-		
-		for (Map.Entry<Key, Integer> entry : restrictions.entrySet()) {
-			Key key = entry.getKey();
-			if (entry.getValue() > rpt[key.getX()][key.getY()])
-				return false;
-		}
+	/**
+	 * Validates a solution reporting the first constraint violated, checked in
+	 * the order 1, 3, 4, 6 and 5/7. The amount of the violation of any
+	 * constraint can then be obtained through {@link #getViolation(PAPConstraint)}.
+	 * 
+	 * @param sol
+	 *            the solution being validated.
+	 * @return the first constraint violated, or null if the solution is feasible.
+	 */
+	public PAPConstraint findViolation(Solution<Triple> sol) {
+		delta.sync(sol);
+		return delta.violatedConstraint();
+	}
 
-	    return true;
+	/**
+	 * @param constraint
+	 *            the constraint of the model.
+	 * @return the amount by which the last validated solution violates the
+	 *         constraint, zero if it is satisfied.
+	 */
+	public int getViolation(PAPConstraint constraint) {
+		return delta.violation(constraint);
 	}
 
 	/**
@@ -169,7 +138,6 @@ public class PAP implements Evaluator<Triple> {
 	 */
 	@Override
 	public Double evaluate(Solution<Triple> sol) {
-		setVariables(sol);
 		if (!validate(sol))
 			return Double.MAX_VALUE;
 		return sol.cost = evaluatePAP(sol);
@@ -183,18 +151,17 @@ public class PAP implements Evaluator<Triple> {
 	 * @return The value of the PAP.
 	 */
 	public Double evaluatePAP(Solution<Triple> sol) {
-		Integer[] courses = new Integer[values.get("D")];
 		Arrays.fill(courses, -1);
 		for (Triple triple: sol) {
 			courses[triple.getD()] = triple.getP();
 		}
 		
-		Double cost = 0.0;
-		for (int i = 0; i < values.get("D"); ++i) {
+		double cost = 0.0;
+		for (int i = 0; i < courses.length; ++i) {
 			if (courses[i] != -1)
-				cost += apd[courses[i]][i];
+				cost += instance.getApd(courses[i], i);
 			else
-				cost -= 100;
+				cost -= UNALLOCATED_PENALTY;
 		}
 		return cost;
 	}
@@ -207,11 +174,29 @@ public class PAP implements Evaluator<Triple> {
 	 */
 	@Override
 	public Double evaluateInsertionCost(Triple elem, Solution<Triple> sol) {
-		setVariables(sol);
+		return evaluateInsertionDelta(elem, sol);
+	}
+
+	@Override
+	public double evaluateInsertionDelta(Triple elem, Solution<Triple> sol) {
 		if (!validate(sol))
 			return Double.MAX_VALUE;
 		return evaluateInsertionPAP(elem);
+	}
 
+	/**
+	 * {@inheritDoc} The solution is synchronized and validated only once for
+	 * the whole neighborhood.
+	 */
+	@Override
+	public void evaluateInsertionCosts(Collection<Triple> elems, Solution<Triple> sol, double[] deltas) {
+		if (!validate(sol)) {
+			Arrays.fill(deltas, 0, elems.size(), Double.MAX_VALUE);
+			return;
+		}
+		int i = 0;
+		for (Triple elem : elems)
+			deltas[i++] = evaluateInsertionPAP(elem);
 	}
 
 	/**
@@ -223,8 +208,8 @@ public class PAP implements Evaluator<Triple> {
 	 * @return The variation of the objective function resulting from the
 	 *         insertion.
 	 */
-	public Double evaluateInsertionPAP(Triple triple) {
-		if (variables[triple.getP()][triple.getD()][triple.getT()] == 1)
+	public double evaluateInsertionPAP(Triple triple) {
+		if (delta.contains(triple))
 			return 0.0;
 
 		return evaluateContributionPAP(triple);
@@ -238,11 +223,46 @@ public class PAP implements Evaluator<Triple> {
 	 */
 	@Override
 	public Double evaluateRemovalCost(Triple elem, Solution<Triple> sol) {
-		setVariables(sol);
+		return evaluateRemovalDelta(elem, sol);
+	}
+
+	@Override
+	public double evaluateRemovalDelta(Triple elem, Solution<Triple> sol) {
 		if (!validate(sol))
 			return Double.MAX_VALUE;
 		return evaluateRemovalPAP(elem);
+	}
 
+	/**
+	 * Same as {@link #evaluateRemovalDelta(Triple, Solution)}, for a packed
+	 * triple, see {@link Triple#key()}.
+	 */
+	public double evaluateRemovalDelta(long key, Solution<Triple> sol) {
+		if (!validate(sol))
+			return Double.MAX_VALUE;
+		return evaluateRemovalPAP(key);
+	}
+
+	/**
+	 * {@inheritDoc} The solution is synchronized and validated only once for
+	 * the whole neighborhood.
+	 */
+	@Override
+	public void evaluateRemovalCosts(Collection<Triple> elems, Solution<Triple> sol, double[] deltas) {
+		if (!validate(sol)) {
+			Arrays.fill(deltas, 0, elems.size(), Double.MAX_VALUE);
+			return;
+		}
+		if (elems instanceof TripleSolution) {
+			// Decoded from the packed keys, without a Triple per element
+			TripleSolution packed = (TripleSolution) elems;
+			for (int i = 0; i < packed.size(); i++)
+				deltas[i] = evaluateRemovalPAP(packed.keyAt(i));
+			return;
+		}
+		int i = 0;
+		for (Triple elem : elems)
+			deltas[i++] = evaluateRemovalPAP(elem);
 	}
 
 	/**
@@ -254,14 +274,28 @@ public class PAP implements Evaluator<Triple> {
 	 * @return The variation of the objective function resulting from the
 	 *         removal.
 	 */
-	public Double evaluateRemovalPAP(Triple triple) {
-		if (variables[triple.getP()][triple.getD()][triple.getT()] == 0)
+	public double evaluateRemovalPAP(Triple triple) {
+		if (!delta.contains(triple))
 			return 0.0;
 
 		return -evaluateContributionPAP(triple);
 
 	}
 
+	/**
+	 * Same as {@link #evaluateRemovalPAP(Triple)}, for a packed triple.
+	 * 
+	 * @param key
+	 *            the triple being removed, see {@link Triple#key()}.
+	 */
+	public double evaluateRemovalPAP(long key) {
+		int p = Triple.p(key), d = Triple.d(key);
+		if (!delta.isTeaching(p, d, Triple.t(key)))
+			return 0.0;
+
+		return -delta.contribution(p, d);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -270,11 +304,36 @@ public class PAP implements Evaluator<Triple> {
 	 */
 	@Override
 	public Double evaluateExchangeCost(Triple elemIn, Triple elemOut, Solution<Triple> sol) {
-		setVariables(sol);
+		return evaluateExchangeDelta(elemIn, elemOut, sol);
+	}
+
+	@Override
+	public double evaluateExchangeDelta(Triple elemIn, Triple elemOut, Solution<Triple> sol) {
 		if (!validate(sol))
 			return Double.MAX_VALUE;
 		return evaluateExchangePAP(elemIn, elemOut);
+	}
 
+	/**
+	 * {@inheritDoc} The solution is synchronized and validated only once for
+	 * the whole neighborhood.
+	 */
+	@Override
+	public void evaluateExchangeCosts(Triple elemIn, Collection<Triple> elemsOut, Solution<Triple> sol, double[] deltas) {
+		if (!validate(sol)) {
+			Arrays.fill(deltas, 0, elemsOut.size(), Double.MAX_VALUE);
+			return;
+		}
+		if (elemsOut instanceof TripleSolution) {
+			// Decoded from the packed keys, without a Triple per element
+			TripleSolution packed = (TripleSolution) elemsOut;
+			for (int i = 0; i < packed.size(); i++)
+				deltas[i] = evaluateExchangePAP(elemIn, packed.keyAt(i));
+			return;
+		}
+		int i = 0;
+		for (Triple elemOut : elemsOut)
+			deltas[i++] = evaluateExchangePAP(elemIn, elemOut);
 	}
 
 	/**
@@ -290,15 +349,17 @@ public class PAP implements Evaluator<Triple> {
 	 * @return The variation of the objective function resulting from the
 	 *         exchange.
 	 */
-	public Double evaluateExchangePAP(Triple in, Triple out) {
-        Double sum = 0.0;
+	public double evaluateExchangePAP(Triple in, Triple out) {
+		double sum = 0.0;
 
+		// Not through evaluateInsertionPAP and evaluateRemovalPAP, which
+		// subclasses may negate, so an override negates the exchange once
 		if (in.equals(out))
 			return 0.0;
-		if (variables[in.getP()][in.getD()][in.getT()] == 1)
-			return evaluateRemovalPAP(out);
-		if (variables[out.getP()][out.getD()][out.getT()] == 0)
-			return evaluateInsertionPAP(in);
+		if (delta.contains(in))
+			return delta.contains(out) ? -evaluateContributionPAP(out) : 0.0;
+		if (!delta.contains(out))
+			return evaluateContributionPAP(in);
 
 		sum += evaluateContributionPAP(in);
 		sum -= evaluateContributionPAP(out);
@@ -307,128 +368,182 @@ public class PAP implements Evaluator<Triple> {
 	}
 
 	/**
-	 * Determines the contribution to the PAP objective function from the
-	 * insertion of an element. This method is faster than evaluating the whole
-	 * solution, since it uses the fact that only one line and one column from
-	 * matrix A needs to be evaluated when inserting a new element into the
-	 * solution. This method is different from {@link #evaluateInsertionPAP(Triple)},
-	 * since it disregards the fact that the element might already be in the
-	 * solution.
+	 * Same as {@link #evaluateExchangePAP(Triple, Triple)}, for a packed
+	 * triple leaving the solution.
 	 * 
-	 * @param triple
-	 *            index of the element being inserted into the solution.
-	 * @return the variation of the objective function resulting from the
-	 *         insertion.
+	 * @param out
+	 *            the triple exiting the solution, see {@link Triple#key()}.
 	 */
-	private Double evaluateContributionPAP(Triple triple) {
-		double sum = 0.0;
-		
-		// Check if the course it's already allocated
-		for (int t = 0; t < values.get("T"); ++t)
-			sum += variables[triple.getP()][triple.getD()][t];
-		
-		if (sum == 0)
-			return Double.valueOf(-apd[triple.getP()][triple.getD()]);
-		
-		return 0.0;
+	public double evaluateExchangePAP(Triple in, long out) {
+		if (in.key() == out)
+			return 0.0;
+		int p = Triple.p(out), d = Triple.d(out);
+		boolean teaching = delta.isTeaching(p, d, Triple.t(out));
+		if (delta.contains(in))
+			return teaching ? -delta.contribution(p, d) : 0.0;
+		if (!teaching)
+			return evaluateContributionPAP(in);
+
+		return evaluateContributionPAP(in) - delta.contribution(p, d);
 	}
 
 	/**
-	 * Responsible for setting the PAP function parameters by reading the
-	 * necessary input from an external file. This method reads the domain's
-	 * dimension and matrix {@link #apd}.
+	 * Evaluates the cost variation of moving a class of a feasible solution to
+	 * another period, which never changes the objective function.
 	 * 
-	 * @param filename
-	 *            Name of the file containing the input for setting the black
-	 *            box function.
-	 * @return The dimension of the domain.
-	 * @throws IOException
-	 *             Necessary for I/O operations.
+	 * @param elem
+	 *            the class (p, d, t) being moved.
+	 * @param t2
+	 *            the period it is moved to.
+	 * @param sol
+	 *            the solution.
+	 * @return zero, or Double.MAX_VALUE if the resulting solution would not
+	 *         be feasible.
 	 */
-	protected Integer readInput(String filename) throws IOException {
-
-		Reader fileInst = new BufferedReader(new FileReader(filename));
-		StreamTokenizer stok = new StreamTokenizer(fileInst);
-
-		values = new HashMap<>();
-
-		String[] keys = {"P", "D", "T", "S", "H"};
-		stok.nextToken();
-		for (String k:keys) {
-			stok.nextToken();
-			values.put(k, (int)stok.nval);
-			stok.nextToken();
-		}
-
-		int p = values.get("P");
-		int d = values.get("D");
-		int t = values.get("T");
-
-		//HD
-		stok.nextToken();
-		hd = new Integer[d];
-		for(int i = 0; i < values.get("D"); i++){
-			stok.nextToken();
-			hd[i] = (int)stok.nval;
-		}
-
-		//APD
-		stok.nextToken();
-		apd = new Integer[p][d];
-		for(int i = 0; i < p; i++){
-			for(int j = 0; j < d; j++){
-				stok.nextToken();
-				apd[i][j] = (int)stok.nval;
-			}
-		}
+	public double evaluateRelocateCost(Triple elem, int t2, Solution<Triple> sol) {
+		if (!validate(sol) || !delta.canRelocate(elem.getP(), elem.getD(), elem.getT(), t2))
+			return Double.MAX_VALUE;
+		return 0.0;
+	}
 
-		//RPT
-		stok.nextToken();
-		rpt = new Integer[p][t];
-		for(int i = 0; i < p; i++){
-			for(int j = 0; j < t; j++){
-				stok.nextToken();
-				rpt[i][j] = (int)stok.nval;
-			}
-		}
+	/**
+	 * Same as {@link #evaluateRelocateCost(Triple, int, Solution)}, for a
+	 * packed class, see {@link Triple#key()}.
+	 */
+	public double evaluateRelocateCost(long key, int t2, Solution<Triple> sol) {
+		if (!validate(sol) || !delta.canRelocate(Triple.p(key), Triple.d(key), Triple.t(key), t2))
+			return Double.MAX_VALUE;
+		return 0.0;
+	}
 
-		return p*d*t;
+	/**
+	 * Evaluates the cost variation of swapping the professors of two
+	 * disciplines of a feasible solution, each discipline keeping its periods.
+	 * 
+	 * @param d1
+	 *            the first discipline.
+	 * @param d2
+	 *            the second discipline.
+	 * @param sol
+	 *            the solution.
+	 * @return the cost variation, or Double.MAX_VALUE if the resulting
+	 *         solution would not be feasible.
+	 */
+	public double evaluateSwapCost(int d1, int d2, Solution<Triple> sol) {
+		if (!validate(sol) || !delta.canSwap(d1, d2))
+			return Double.MAX_VALUE;
+		int p1 = delta.ownerOf(d1), p2 = delta.ownerOf(d2);
+		return instance.getApd(p1, d1) + instance.getApd(p2, d2) - instance.getApd(p2, d1) - instance.getApd(p1, d2);
+	}
 
+	/**
+	 * Evaluates the cost variation of reassigning a discipline of a feasible
+	 * solution, allocated or not, to another professor, with all its periods
+	 * chosen again.
+	 * 
+	 * @param d
+	 *            the discipline.
+	 * @param p2
+	 *            the professor who takes it.
+	 * @param sol
+	 *            the solution.
+	 * @param periods
+	 *            array, with at least hd[d] positions, which receives the new
+	 *            periods of the discipline.
+	 * @return the cost variation, or Double.MAX_VALUE if the resulting
+	 *         solution would not be feasible.
+	 */
+	public double evaluateReassignCost(int d, int p2, Solution<Triple> sol, int[] periods) {
+		if (!validate(sol) || !delta.findReassignment(d, p2, periods))
+			return Double.MAX_VALUE;
+		int p = delta.ownerOf(d);
+		return (p < 0 ? -UNALLOCATED_PENALTY : instance.getApd(p, d)) - instance.getApd(p2, d);
 	}
 
 	/**
-	 * Reserving the required memory for storing the values of the domain
-	 * variables.
+	 * Evaluates the cost variation of giving a discipline of a feasible
+	 * solution to a professor in the given periods, or of leaving it without
+	 * a professor.
 	 * 
-	 * @return a pointer to the array of domain variables.
+	 * @param d
+	 *            the discipline.
+	 * @param p2
+	 *            the professor who takes it, or -1 to leave it unallocated.
+	 * @param periods
+	 *            array with the periods in positions [from, from + count).
+	 * @param sol
+	 *            the solution.
+	 * @return the cost variation, or Double.MAX_VALUE if the resulting
+	 *         solution would not be feasible.
 	 */
-	protected Double[][][] allocateVariables() {
-		Double[][][] _variables = new Double[values.get("P")][values.get("D")][values.get("T")];
-		return _variables;
+	public double evaluateAssignCost(int d, int p2, int[] periods, int from, int count, Solution<Triple> sol) {
+		if (!validate(sol))
+			return Double.MAX_VALUE;
+		int p = delta.ownerOf(d);
+		double current = p < 0 ? -UNALLOCATED_PENALTY : instance.getApd(p, d);
+		if (p2 < 0)
+			return current + UNALLOCATED_PENALTY;
+		if (!delta.canAssign(d, p2, periods, from, count))
+			return Double.MAX_VALUE;
+		return current - instance.getApd(p2, d);
 	}
 
 	/**
-	 * Reset the domain variables to their default values.
+	 * @param d
+	 *            the discipline.
+	 * @param p
+	 *            the professor.
+	 * @param t
+	 *            the period.
+	 * @return true if the professor teaches the discipline in the period in
+	 *         the last validated solution.
 	 */
-	public void resetVariables() {
-		for (int p = 0; p < values.get("P"); ++p)
-			for (int d = 0; d < values.get("D"); ++d)
-				Arrays.fill(variables[p][d], 0.0);
+	public boolean isTeaching(int p, int d, int t) {
+		return delta.isTeaching(p, d, t);
 	}
 
+	/**
+	 * @param d
+	 *            the discipline.
+	 * @return the professor of the discipline in the last validated solution,
+	 *         or -1 if it is not allocated.
+	 */
+	public int getProfessor(int d) {
+		return delta.ownerOf(d);
+	}
 
-	@Override
-	public Integer[][] getApd() {
-		return apd;
+	/**
+	 * @param t
+	 *            the period.
+	 * @return the number of classes in the period in the last validated
+	 *         solution.
+	 */
+	public int getRoomsUsed(int t) {
+		return delta.roomsUsed(t);
 	}
-	
-	@Override
-	public Integer getHd(int d) {
-		return hd[d];
+
+	/**
+	 * Determines the contribution to the PAP objective function from the
+	 * insertion of an element. This method is faster than evaluating the whole
+	 * solution, since it only checks, in the incremental state, whether the
+	 * professor already teaches the discipline. This method is different from
+	 * {@link #evaluateInsertionPAP(Triple)}, since it disregards the fact that
+	 * the element might already be in the solution.
+	 * 
+	 * @param triple
+	 *            index of the element being inserted into the solution.
+	 * @return the variation of the objective function resulting from the
+	 *         insertion.
+	 */
+	private double evaluateContributionPAP(Triple triple) {
+		return delta.contribution(triple);
 	}
 
-	@Override
-	public Integer[] getRpt(int p){
-		return rpt[p];
+
+	/**
+	 * @return the instance being solved.
+	 */
+	public PAPInstance getInstance() {
+		return instance;
 	}
 }
@@ -0,0 +1,412 @@
+package problems.pap;
+
+import java.util.Arrays;
+
+import models.PAPConstraint;
+import models.Triple;
+import solutions.Solution;
+import solutions.TripleSolution;
+
+/**
+ * Incremental evaluation state for the PAP. It keeps, for the solution it is
+ * bound to, the counters required by every constraint of the model (owners of
+ * each discipline, periods of each discipline, room usage of each period,
+ * workload of each professor and occupancy of each pair (p,t)), together with
+ * the amount by which each constraint is violated. Inserting or removing a triple
+ * updates all of them in O(1), so the feasibility of the solution and the
+ * cost variation of a move can be queried in O(1) instead of re-validating the
+ * whole solution.
+ *
+ * The state is synchronized lazily through {@link #sync(Solution)}: as long as
+ * the same solution is queried and it was not modified since the last call,
+ * nothing is recomputed.
+ *
+ * This class is not thread-safe; each solver must own its instance.
+ */
+public class PAPDeltaEvaluator {
+
+	private final int P, D, T, S, H;
+	private final int[] hd;
+	private final int[][] apd;
+	private final int[][] rpt;
+
+	/**
+	 * bitset of the triples (p,d,t) of the solution, one bit per variable
+	 * x_pdt indexed by (p*D + d)*T + t, since a solution holds each triple at
+	 * most once
+	 */
+	private final long[] cells;
+
+	/**
+	 * number of periods professor p teaches discipline d, indexed by p*D + d
+	 */
+	private final int[] teaching;
+
+	/**
+	 * number of distinct professors allocated to each discipline
+	 */
+	private final int[] owners;
+
+	/**
+	 * sum of the professors allocated to each discipline, which is the
+	 * professor itself when there is only one
+	 */
+	private final int[] ownerSum;
+
+	/**
+	 * number of periods allocated to each discipline
+	 */
+	private final int[] periods;
+
+	/**
+	 * number of classes allocated in each period
+	 */
+	private final int[] rooms;
+
+	/**
+	 * number of classes allocated to each professor
+	 */
+	private final int[] workloads;
+
+	/**
+	 * number of classes of professor p in period t, indexed by p*T + t
+	 */
+	private final int[] occupancy;
+
+	/**
+	 * amount by which constraints 1, 3, 4, 6 and 5/7 are violated, i.e., the
+	 * extra professors of the disciplines, the deviation of the periods of the
+	 * disciplines from hd, and the classes exceeding S, H and rpt respectively
+	 */
+	private int ownerExcess, periodExcess, roomExcess, workloadExcess, availabilityExcess;
+
+	/**
+	 * triples currently applied to the counters, packed as (p*D + d)*T + t
+	 */
+	private int[] applied;
+	private int appliedSize;
+
+	/**
+	 * the solution the counters refer to and its version when they were built
+	 */
+	private Solution<Triple> bound;
+	private long boundVersion;
+
+	public PAPDeltaEvaluator(PAPInstance instance) {
+		P = instance.P;
+		D = instance.D;
+		T = instance.T;
+		S = instance.S;
+		H = instance.H;
+		hd = instance.hd;
+		apd = instance.apd;
+		rpt = instance.rpt;
+
+		cells = new long[(P * D * T + 63) >>> 6];
+		teaching = new int[P * D];
+		owners = new int[D];
+		ownerSum = new int[D];
+		periods = new int[D];
+		rooms = new int[T];
+		workloads = new int[P];
+		occupancy = new int[P * T];
+		applied = new int[16];
+	}
+
+	/**
+	 * Makes the counters reflect the given solution. It is O(1) when the
+	 * solution is the one already bound and it was not modified since, and
+	 * O(|previous| + |sol|) otherwise.
+	 *
+	 * @param sol
+	 *            the solution to synchronize with.
+	 */
+	public void sync(Solution<Triple> sol) {
+		if (sol == bound && sol.getVersion() == boundVersion)
+			return;
+
+		clear();
+		if (sol instanceof TripleSolution) {
+			TripleSolution packed = (TripleSolution) sol;
+			for (int i = 0; i < packed.size(); i++) {
+				long key = packed.keyAt(i);
+				add(Triple.p(key), Triple.d(key), Triple.t(key));
+			}
+		} else {
+			for (Triple triple : sol)
+				add(triple.getP(), triple.getD(), triple.getT());
+		}
+
+		bound = sol;
+		boundVersion = sol.getVersion();
+	}
+
+	/**
+	 * Undoes every triple applied to the counters, leaving them all zeroed
+	 * without touching the cells that were not used.
+	 */
+	public void clear() {
+		while (appliedSize > 0) {
+			int cell = applied[--appliedSize];
+			int t = cell % T, pd = cell / T;
+			remove(pd / D, pd % D, t);
+		}
+		bound = null;
+	}
+
+	/**
+	 * @return 1 if the triple of the given index is in the solution, 0
+	 *         otherwise.
+	 */
+	private int cell(int index) {
+		return (int) (cells[index >>> 6] >>> index) & 1;
+	}
+
+	private void setCell(int index) {
+		cells[index >>> 6] |= 1L << index;
+	}
+
+	private void clearCell(int index) {
+		cells[index >>> 6] &= ~(1L << index);
+	}
+
+	private void add(int p, int d, int t) {
+		int pd = p * D + d, pt = p * T + t;
+
+		if (appliedSize == applied.length)
+			applied = Arrays.copyOf(applied, 2 * applied.length);
+		applied[appliedSize++] = pd * T + t;
+		setCell(pd * T + t);
+
+		if (teaching[pd]++ == 0) {
+			ownerSum[d] += p;
+			if (++owners[d] > 1)
+				ownerExcess++;
+		}
+
+		periodExcess -= periodDeviation(d);
+		periods[d]++;
+		periodExcess += periodDeviation(d);
+
+		if (++rooms[t] > S)
+			roomExcess++;
+		if (++workloads[p] > H)
+			workloadExcess++;
+		if (++occupancy[pt] > rpt[p][t])
+			availabilityExcess++;
+	}
+
+	private void remove(int p, int d, int t) {
+		int pd = p * D + d, pt = p * T + t;
+
+		clearCell(pd * T + t);
+
+		if (--teaching[pd] == 0) {
+			ownerSum[d] -= p;
+			if (owners[d]-- > 1)
+				ownerExcess--;
+		}
+
+		periodExcess -= periodDeviation(d);
+		periods[d]--;
+		periodExcess += periodDeviation(d);
+
+		if (rooms[t]-- > S)
+			roomExcess--;
+		if (workloads[p]-- > H)
+			workloadExcess--;
+		if (occupancy[pt]-- > rpt[p][t])
+			availabilityExcess--;
+	}
+
+	private int periodDeviation(int d) {
+		return periods[d] == 0 ? 0 : Math.abs(periods[d] - hd[d]);
+	}
+
+	/**
+	 * @return true if the bound solution satisfies every constraint, in the
+	 *         same sense as {@link PAP#validate(Solution)}.
+	 */
+	public boolean isFeasible() {
+		return (ownerExcess | periodExcess | roomExcess | workloadExcess | availabilityExcess) == 0;
+	}
+
+	/**
+	 * @param constraint
+	 *            the constraint of the model.
+	 * @return the amount by which the bound solution violates the constraint,
+	 *         zero if it is satisfied.
+	 */
+	public int violation(PAPConstraint constraint) {
+		switch (constraint) {
+		case ALLOCATION:
+			return ownerExcess;
+		case PERIODS:
+			return periodExcess;
+		case ROOMS:
+			return roomExcess;
+		case WORKLOAD:
+			return workloadExcess;
+		case AVAILABILITY:
+			return availabilityExcess;
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * @return the first constraint violated by the bound solution, checked in
+	 *         the same order as {@link PAP#validate(Solution)}, or null if it
+	 *         is feasible.
+	 */
+	public PAPConstraint violatedConstraint() {
+		if (ownerExcess > 0)
+			return PAPConstraint.ALLOCATION;
+		if (periodExcess > 0)
+			return PAPConstraint.PERIODS;
+		if (roomExcess > 0)
+			return PAPConstraint.ROOMS;
+		if (workloadExcess > 0)
+			return PAPConstraint.WORKLOAD;
+		if (availabilityExcess > 0)
+			return PAPConstraint.AVAILABILITY;
+		return null;
+	}
+
+	/**
+	 * @return true if the triple belongs to the bound solution.
+	 */
+	public boolean contains(Triple triple) {
+		return cell((triple.getP() * D + triple.getD()) * T + triple.getT()) > 0;
+	}
+
+	/**
+	 * @return true if professor p teaches at least one period of discipline d
+	 *         in the bound solution.
+	 */
+	public boolean isTeaching(int p, int d) {
+		return teaching[p * D + d] > 0;
+	}
+
+	/**
+	 * @return the professor allocated to discipline d, or -1 if there is none;
+	 *         meaningful when the bound solution is feasible.
+	 */
+	public int ownerOf(int d) {
+		return owners[d] == 0 ? -1 : ownerSum[d];
+	}
+
+	/**
+	 * @return true if professor p teaches discipline d in period t.
+	 */
+	public boolean isTeaching(int p, int d, int t) {
+		return cell((p * D + d) * T + t) > 0;
+	}
+
+	/**
+	 * @return the number of classes allocated in period t.
+	 */
+	public int roomsUsed(int t) {
+		return rooms[t];
+	}
+
+	/**
+	 * Checks, in O(1), whether moving the class of the bound solution
+	 * (p, d, t) to period t2 keeps it feasible: the professor must be
+	 * available and free in t2, and t2 must have a free room.
+	 */
+	public boolean canRelocate(int p, int d, int t, int t2) {
+		return t != t2 && isTeaching(p, d, t) && rpt[p][t2] == 1 && occupancy[p * T + t2] == 0 && rooms[t2] < S;
+	}
+
+	/**
+	 * Checks, in O(T), whether swapping the professors of disciplines d1 and
+	 * d2, each keeping its periods, keeps the bound solution feasible: each
+	 * professor must be available and free in the periods of the other
+	 * discipline, once its own are freed, and within its workload.
+	 */
+	public boolean canSwap(int d1, int d2) {
+		int p1 = ownerOf(d1), p2 = ownerOf(d2);
+		if (p1 < 0 || p2 < 0 || p1 == p2)
+			return false;
+		if (workloads[p1] - hd[d1] + hd[d2] > H || workloads[p2] - hd[d2] + hd[d1] > H)
+			return false;
+
+		for (int t = 0; t < T; t++) {
+			int a1 = cell((p1 * D + d1) * T + t), a2 = cell((p2 * D + d2) * T + t);
+			if (occupancy[p2 * T + t] - a2 + a1 > rpt[p2][t] || occupancy[p1 * T + t] - a1 + a2 > rpt[p1][t])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Chooses, in O(T), the periods in which professor p2 could teach
+	 * discipline d in place of its current professor: periods where p2 is
+	 * available and free and with a free room once the current classes of d
+	 * are removed, the earliest ones first.
+	 *
+	 * @param periods
+	 *            array, with at least hd[d] positions, which receives the
+	 *            periods.
+	 * @return true if hd[d] periods were found and p2 would stay within its
+	 *         workload.
+	 */
+	public boolean findReassignment(int d, int p2, int[] periods) {
+		int p = ownerOf(d);
+		if (p == p2 || workloads[p2] + hd[d] > H)
+			return false;
+
+		int found = 0;
+		for (int t = 0; t < T && found < hd[d]; t++) {
+			int freed = p >= 0 ? cell((p * D + d) * T + t) : 0;
+			if (rpt[p2][t] == 1 && occupancy[p2 * T + t] == 0 && rooms[t] - freed < S)
+				periods[found++] = t;
+		}
+		return found == hd[d];
+	}
+
+	/**
+	 * Checks, in O(count), whether discipline d can be given to professor p2,
+	 * who may already be its professor, in the given periods, once its
+	 * current classes are removed.
+	 *
+	 * @param periods
+	 *            array with the periods in positions [from, from + count).
+	 */
+	public boolean canAssign(int d, int p2, int[] periods, int from, int count) {
+		int p = ownerOf(d);
+		if (workloads[p2] - (p == p2 ? teaching[p2 * D + d] : 0) + count > H)
+			return false;
+
+		for (int i = from; i < from + count; i++) {
+			int t = periods[i];
+			int freed = p >= 0 ? cell((p * D + d) * T + t) : 0;
+			if (rpt[p2][t] != 1 || occupancy[p2 * T + t] - (p == p2 ? freed : 0) > 0 || rooms[t] - freed >= S)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Contribution of a triple to the objective function, i.e., minus the
+	 * professor's score when it would start teaching the discipline and zero
+	 * when it already teaches it.
+	 *
+	 * @param triple
+	 *            the triple under consideration.
+	 * @return the contribution of the triple.
+	 */
+	public double contribution(Triple triple) {
+		return contribution(triple.getP(), triple.getD());
+	}
+
+	/**
+	 * @return the contribution of a triple of professor p and discipline d,
+	 *         see {@link #contribution(Triple)}.
+	 */
+	public double contribution(int p, int d) {
+		return isTeaching(p, d) ? 0.0 : -apd[p][d];
+	}
+
+}
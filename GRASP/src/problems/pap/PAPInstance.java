@@ -0,0 +1,77 @@
+package problems.pap;
+
+import java.io.IOException;
+
+/**
+ * Immutable data of a PAP instance. Since it never changes after being
+ * loaded, a single instance can be shared by any number of solvers, in the
+ * same or in different threads. The mutable state needed to evaluate
+ * solutions lives in {@link PAP}, which each solver owns.
+ */
+public final class PAPInstance {
+
+	/**
+	 * number of professors, disciplines, periods, rooms and the maximum
+	 * number of classes of a professor
+	 */
+	public final int P, D, T, S, H;
+
+	/**
+	 * periods required by each discipline
+	 */
+	final int[] hd;
+
+	/**
+	 * score of each professor in each discipline
+	 */
+	final int[][] apd;
+
+	/**
+	 * availability of each professor in each period
+	 */
+	final int[][] rpt;
+
+	PAPInstance(int P, int D, int T, int S, int H, int[] hd, int[][] apd, int[][] rpt) {
+		this.P = P;
+		this.D = D;
+		this.T = T;
+		this.S = S;
+		this.H = H;
+		this.hd = hd;
+		this.apd = apd;
+		this.rpt = rpt;
+	}
+
+	/**
+	 * Loads an instance through {@link PAPReader}.
+	 *
+	 * @param filename
+	 *            Name of the file containing the instance.
+	 * @return The instance.
+	 * @throws IOException
+	 *             Necessary for I/O operations.
+	 */
+	public static PAPInstance read(String filename) throws IOException {
+		return PAPReader.read(filename);
+	}
+
+	public int getHd(int d) {
+		return hd[d];
+	}
+
+	public int getApd(int p, int d) {
+		return apd[p][d];
+	}
+
+	public int getRpt(int p, int t) {
+		return rpt[p][t];
+	}
+
+	/**
+	 * @return the number of decision variables x(p,d,t).
+	 */
+	public int getDomainSize() {
+		return P * D * T;
+	}
+
+}
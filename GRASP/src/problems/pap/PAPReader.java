@@ -0,0 +1,185 @@
+package problems.pap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Loader of PAP instances. The text format (.pap) is parsed straight from a
+ * memory-mapped buffer into primitive arrays, and a binary sidecar (.papb)
+ * is written next to it. Later loads of the same instance map the sidecar
+ * and copy its contents in bulk, skipping the parsing altogether.
+ *
+ * The binary format is a sequence of big-endian ints: magic, version, P, D,
+ * T, S, H, followed by hd (D values), apd (P*D values, row-major) and rpt
+ * (P*T values, row-major).
+ */
+public class PAPReader {
+
+	/**
+	 * suffix appended to the name of the text instance to get its sidecar
+	 */
+	public static final String BINARY_SUFFIX = "b";
+
+	private static final int MAGIC = 0x50415042; // "PAPB"
+	private static final int VERSION = 1;
+	private static final int HEADER_INTS = 7;
+
+	/**
+	 * Loads an instance, using its binary sidecar when it is up to date and
+	 * creating it otherwise. A file whose name already ends with the sidecar
+	 * suffix is read as binary.
+	 *
+	 * @param filename
+	 *            Name of the file containing the instance.
+	 * @return The instance.
+	 * @throws IOException
+	 *             Necessary for I/O operations.
+	 */
+	public static PAPInstance read(String filename) throws IOException {
+		Path text = Paths.get(filename);
+		if (filename.endsWith(".pap" + BINARY_SUFFIX))
+			return readBinary(text);
+
+		Path binary = Paths.get(filename + BINARY_SUFFIX);
+		if (Files.exists(binary)
+				&& Files.getLastModifiedTime(binary).compareTo(Files.getLastModifiedTime(text)) >= 0) {
+			try {
+				return readBinary(binary);
+			} catch (IOException e) {
+				// Corrupted or from another version, parse the text again
+			}
+		}
+
+		PAPInstance instance = readText(text);
+		try {
+			writeBinary(binary, instance);
+		} catch (IOException e) {
+			// The sidecar is only a cache, e.g. the folder may be read-only
+		}
+		return instance;
+	}
+
+	/**
+	 * Parses the text format. Labels carry no digits, so every number of the
+	 * file is read in order, skipping everything else.
+	 */
+	public static PAPInstance readText(Path path) throws IOException {
+		MappedByteBuffer buf = map(path);
+
+		int P = nextInt(buf);
+		int D = nextInt(buf);
+		int T = nextInt(buf);
+		int S = nextInt(buf);
+		int H = nextInt(buf);
+
+		int[] hd = new int[D];
+		for (int d = 0; d < D; d++)
+			hd[d] = nextInt(buf);
+
+		int[][] apd = new int[P][D];
+		for (int p = 0; p < P; p++)
+			for (int d = 0; d < D; d++)
+				apd[p][d] = nextInt(buf);
+
+		int[][] rpt = new int[P][T];
+		for (int p = 0; p < P; p++)
+			for (int t = 0; t < T; t++)
+				rpt[p][t] = nextInt(buf);
+
+		return new PAPInstance(P, D, T, S, H, hd, apd, rpt);
+	}
+
+	/**
+	 * Reads the binary format from a memory-mapped view of the file.
+	 */
+	public static PAPInstance readBinary(Path path) throws IOException {
+		IntBuffer ints = map(path).asIntBuffer();
+		if (ints.remaining() < HEADER_INTS || ints.get() != MAGIC || ints.get() != VERSION)
+			throw new IOException("Invalid binary instance: " + path);
+
+		int P = ints.get();
+		int D = ints.get();
+		int T = ints.get();
+		int S = ints.get();
+		int H = ints.get();
+		if (ints.remaining() != D + P * (D + T))
+			throw new IOException("Truncated binary instance: " + path);
+
+		int[] hd = new int[D];
+		ints.get(hd);
+		int[][] apd = new int[P][D];
+		for (int p = 0; p < P; p++)
+			ints.get(apd[p]);
+		int[][] rpt = new int[P][T];
+		for (int p = 0; p < P; p++)
+			ints.get(rpt[p]);
+
+		return new PAPInstance(P, D, T, S, H, hd, apd, rpt);
+	}
+
+	/**
+	 * Writes the binary format. The file is written under a temporary name and
+	 * then moved, so concurrent readers never see it partially written.
+	 */
+	public static void writeBinary(Path path, PAPInstance instance) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(4 * (HEADER_INTS + instance.D + instance.P * (instance.D + instance.T)));
+		IntBuffer ints = buf.asIntBuffer();
+		ints.put(MAGIC).put(VERSION);
+		ints.put(instance.P).put(instance.D).put(instance.T).put(instance.S).put(instance.H);
+		ints.put(instance.hd);
+		for (int[] row : instance.apd)
+			ints.put(row);
+		for (int[] row : instance.rpt)
+			ints.put(row);
+
+		Path tmp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+		try {
+			try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+				while (buf.hasRemaining())
+					ch.write(buf);
+			}
+			try {
+				Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	private static MappedByteBuffer map(Path path) throws IOException {
+		try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+			return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+		}
+	}
+
+	private static int nextInt(ByteBuffer buf) throws IOException {
+		byte c;
+		do {
+			if (!buf.hasRemaining())
+				throw new IOException("Unexpected end of instance");
+			c = buf.get();
+		} while ((c < '0' || c > '9') && c != '-');
+
+		boolean negative = c == '-';
+		int value = negative ? 0 : c - '0';
+		while (buf.hasRemaining()) {
+			c = buf.get();
+			if (c < '0' || c > '9')
+				break;
+			value = 10 * value + (c - '0');
+		}
+		return negative ? -value : value;
+	}
+
+}
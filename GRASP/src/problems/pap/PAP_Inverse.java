@@ -21,6 +21,16 @@ public class PAP_Inverse extends PAP {
 		super(filename);
 	}
 
+	/**
+	 * Constructor for the PAP_Inverse class from an instance already loaded.
+	 * 
+	 * @param instance
+	 *            The instance of the PAP.
+	 */
+	public PAP_Inverse(PAPInstance instance) {
+		super(instance);
+	}
+
 
 	/* (non-Javadoc)
 	 * @see problems.pap.PAP#evaluate()
@@ -34,7 +44,7 @@ public class PAP_Inverse extends PAP {
 	 * @see problems.pap.PAP#evaluateInsertion(int)
 	 */
 	@Override
-	public Double evaluateInsertionPAP(Triple triple) {	
+	public double evaluateInsertionPAP(Triple triple) {	
 		return -super.evaluateInsertionPAP(triple);
 	}
 	
@@ -42,7 +52,7 @@ public class PAP_Inverse extends PAP {
 	 * @see problems.pap.PAP#evaluateRemoval(int)
 	 */
 	@Override
-	public Double evaluateRemovalPAP(Triple triple) {
+	public double evaluateRemovalPAP(Triple triple) {
 		return -super.evaluateRemovalPAP(triple);
 	}
 	
@@ -50,8 +60,56 @@ public class PAP_Inverse extends PAP {
 	 * @see problems.pap.PAP#evaluateExchange(int, int)
 	 */
 	@Override
-	public Double evaluateExchangePAP(Triple in, Triple out) {
+	public double evaluateExchangePAP(Triple in, Triple out) {
+		return -super.evaluateExchangePAP(in,out);
+	}
+
+	/* (non-Javadoc)
+	 * @see problems.pap.PAP#evaluateRemovalPAP(long)
+	 */
+	@Override
+	public double evaluateRemovalPAP(long key) {
+		return -super.evaluateRemovalPAP(key);
+	}
+	
+	/* (non-Javadoc)
+	 * @see problems.pap.PAP#evaluateExchangePAP(Triple, long)
+	 */
+	@Override
+	public double evaluateExchangePAP(Triple in, long out) {
 		return -super.evaluateExchangePAP(in,out);
 	}
 
+	/* (non-Javadoc)
+	 * @see problems.pap.PAP#evaluateSwapCost(int, int, Solution)
+	 */
+	@Override
+	public double evaluateSwapCost(int d1, int d2, Solution<Triple> sol) {
+		return negate(super.evaluateSwapCost(d1, d2, sol));
+	}
+	
+	/* (non-Javadoc)
+	 * @see problems.pap.PAP#evaluateReassignCost(int, int, Solution, int[])
+	 */
+	@Override
+	public double evaluateReassignCost(int d, int p2, Solution<Triple> sol, int[] periods) {
+		return negate(super.evaluateReassignCost(d, p2, sol, periods));
+	}
+	
+	/* (non-Javadoc)
+	 * @see problems.pap.PAP#evaluateAssignCost(int, int, int[], int, int, Solution)
+	 */
+	@Override
+	public double evaluateAssignCost(int d, int p2, int[] periods, int from, int count, Solution<Triple> sol) {
+		return negate(super.evaluateAssignCost(d, p2, periods, from, count, sol));
+	}
+	
+	/**
+	 * Negates a cost variation, keeping Double.MAX_VALUE for an infeasible
+	 * move.
+	 */
+	private static double negate(double cost) {
+		return cost == Double.MAX_VALUE ? cost : -cost;
+	}
+
 }
@@ -0,0 +1,109 @@
+package problems.pap.executors;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a matrix of independent experiments concurrently on a bounded pool of
+ * threads. Each job must own its solver; only read-only data, such as a
+ * {@link problems.pap.PAPInstance}, may be shared between jobs.
+ *
+ * The jobs are started in decreasing order of their expected duration, so
+ * the longest ones do not end up running alone at the end of the sweep while
+ * the other threads are idle. A job which fails is reported and does not stop
+ * the others.
+ */
+public class ExperimentScheduler {
+
+	private static final class Job {
+		final String name;
+		final long expectedCost;
+		final Runnable task;
+
+		Job(String name, long expectedCost, Runnable task) {
+			this.name = name;
+			this.expectedCost = expectedCost;
+			this.task = task;
+		}
+	}
+
+	private final List<Job> jobs = new ArrayList<Job>();
+	private final int threads;
+
+	/**
+	 * @param threads
+	 *            the maximum number of jobs running at the same time.
+	 */
+	public ExperimentScheduler(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * @return a scheduler with one thread per available processor.
+	 */
+	public static ExperimentScheduler sizedToMachine() {
+		return new ExperimentScheduler(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Adds a job to the matrix.
+	 *
+	 * @param name
+	 *            the name of the job, used to report failures.
+	 * @param expectedCost
+	 *            any measure which grows with the expected duration of the job,
+	 *            such as the size of its instance.
+	 * @param task
+	 *            the job itself.
+	 */
+	public void add(String name, long expectedCost, Runnable task) {
+		jobs.add(new Job(name, expectedCost, task));
+	}
+
+	public int size() {
+		return jobs.size();
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Runs every job added, longest expected first, and waits for all of
+	 * them to finish. The matrix is emptied afterwards.
+	 *
+	 * @return the number of jobs which failed.
+	 */
+	public int run() throws InterruptedException {
+		jobs.sort(Comparator.comparingLong((Job job) -> job.expectedCost).reversed());
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		for (Job job : jobs)
+			futures.add(pool.submit(job.task));
+		pool.shutdown();
+
+		int failed = 0;
+		try {
+			for (int i = 0; i < futures.size(); i++) {
+				try {
+					futures.get(i).get();
+				} catch (ExecutionException e) {
+					failed++;
+					e.getCause().printStackTrace();
+					System.out.println("Error running experiment: " + jobs.get(i).name);
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+			jobs.clear();
+		}
+		return failed;
+	}
+
+}
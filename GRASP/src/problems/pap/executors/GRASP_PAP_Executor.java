@@ -2,18 +2,26 @@ package problems.pap.executors;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import metaheuristics.grasp.AbstractGRASP;
+import metaheuristics.grasp.SearchMetrics;
+import metaheuristics.grasp.TraceRecorder;
 
 import models.ConstructiveHeuristicType;
 import models.Experiment;
 import models.LocalSearchType;
 import models.Triple;
+import problems.pap.PAPInstance;
 import problems.pap.solvers.GRASP_PAP;
 import solutions.Solution;
 
 
 public class GRASP_PAP_Executor {
 
-	public static void main(String[] args) throws IOException {
+	public static void main(String[] args) throws IOException, InterruptedException {
 		
 		// Params
 		String[] instances = {
@@ -23,7 +31,21 @@ public class GRASP_PAP_Executor {
 				"P100D150S10.pap", "P100D150S15.pap", "P100D150S20.pap"
 		};
 		Double[] alphas = {0.1, 0.5, 0.9};
+		// With --reactive, learn alpha in a single run per experiment instead of
+		// one run per alpha; off by default to keep the fixed alpha sweep.
+		// Reproducible, since each experiment runs its iterations on a single worker
+		boolean reactive = Arrays.asList(args).contains("--reactive");
+		double[] reactiveAlphas = {0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8, 0.9};
+		int reactivePeriod = 50;
 		Integer iterations = 1000;
+		// Local optima kept to skip repeated local searches
+		int localOptimaCache = 1024;
+		// Phase timers and move counters, written next to the results
+		boolean metrics = true;
+		// Improvements kept for the time-to-target curves, 0 to disable
+		int traceCapacity = 4096;
+		// Experiments run at the same time, one per processor
+		ExperimentScheduler scheduler = ExperimentScheduler.sizedToMachine();
 		
 		// Experiments
 		Experiment[] experiments = {
@@ -31,32 +53,83 @@ public class GRASP_PAP_Executor {
 			new Experiment(LocalSearchType.BEST_IMPROVING,  ConstructiveHeuristicType.DEFAULT, "BEST_DEFAULT"),
 		};
 		
+		// The improvements of concurrent runs would be mixed up on the screen
+		if (scheduler.getThreads() > 1)
+			AbstractGRASP.verbose = false;
+		
+		List<FileWriter> fileWriters = new ArrayList<FileWriter>();
+		ResultSink sink = new ResultSink("results/results_all.csv");
 		
 		for (String instance : instances) {
+			PAPInstance papInstance;
+			try {
+				// Loaded once and shared, read-only, by all the experiments of the instance
+				papInstance = PAPInstance.read("../instances/" + instance);
+			} catch (IOException e) {
+				e.printStackTrace();
+				System.out.println("Error reading instance: "+instance);
+				continue;
+			}
+			
 			FileWriter fileWriter = new FileWriter("results/" + instance + ".txt");
+			fileWriters.add(fileWriter);
+			// The larger the instance, the longer its experiments
+			long size = (long) papInstance.P * papInstance.D * papInstance.T;
 			
-			for (Double alpha : alphas) {
+			Double[] runAlphas = reactive ? new Double[] {reactiveAlphas[0]} : alphas;
+			for (Double alpha : runAlphas) {
 				for (Experiment experiment: experiments) {
-					try {
-						String expName = "ALPHA=" + alpha + "_" + experiment.getKey();
+					String expName = (reactive ? "REACTIVE" : "ALPHA=" + alpha) + "_" + experiment.getKey();
+					
+					scheduler.add(instance + " " + expName, size, () -> {
 						System.out.println("\n\nINSTANCE:" + instance + "\tRUNNING EXPERIMENT: " + expName + "\n");
-
-						GRASP_PAP grasp_pap = new GRASP_PAP(alpha, iterations, "../instances/" + instance,
+						
+						// Each job owns its solver, with its own evaluation state
+						GRASP_PAP grasp_pap = new GRASP_PAP(alpha, iterations, papInstance,
 								experiment.getLocalSearchType(), experiment.getConstructiveHeuristicType());
-						GRASP_PAP_Executor.executeInstance(expName, grasp_pap, fileWriter);
-
-					} catch (IOException e) {
-						e.printStackTrace();
-						System.out.println("Error reading instance  or writing in file: "+instance);
-					}
+						grasp_pap.setLocalOptimaCache(localOptimaCache);
+						if (reactive)
+							grasp_pap.setReactiveAlpha(reactiveAlphas, reactivePeriod);
+						if (metrics)
+							grasp_pap.setMetrics(new SearchMetrics());
+						grasp_pap.setTrace(traceCapacity);
+						
+						GRASP_PAP_Executor.executeInstance(instance, expName, grasp_pap, fileWriter, sink);
+						GRASP_PAP_Executor.writeMetrics("results/" + instance + "_" + expName, grasp_pap.getMetrics());
+						GRASP_PAP_Executor.writeTrace("results/" + instance + "_" + expName, instance, grasp_pap.getTrace());
+					});
 				}
 			}
-
-			fileWriter.close();
+		}
+		
+		int failed;
+		try {
+			failed = scheduler.run();
+		} finally {
+			for (FileWriter fileWriter : fileWriters)
+				fileWriter.close();
+			sink.close();
+		}
+		
+		// A sweep with failed experiments must not look successful
+		if (failed > 0) {
+			System.out.println(failed + " experiment(s) failed");
+			System.exit(1);
 		}
 	}
 	
 	public static void executeInstance(String title, GRASP_PAP grasp, FileWriter fileWriter) {
+		executeInstance(null, title, grasp, fileWriter, null);
+	}
+	
+	/**
+	 * Runs an experiment and reports its result on the screen, in the text
+	 * file of its instance and, if given, in the sink. It may be called by
+	 * concurrent jobs sharing the same file, since the report of each
+	 * experiment is appended to it at once.
+	 */
+	public static void executeInstance(String instance, String title, GRASP_PAP grasp, FileWriter fileWriter,
+			ResultSink sink) {
 		
 		long startTime = System.currentTimeMillis();
 		Solution<Triple> bestSol = grasp.solve();
@@ -64,19 +137,85 @@ public class GRASP_PAP_Executor {
 		long totalTime = endTime - startTime;
 		double time = (double)totalTime/(double)1000;
 		
-		System.out.println("Best Val = " + bestSol);
-		System.out.println("Time = "+ time + " seg");
+		StringBuilder screen = new StringBuilder();
+		if (instance != null)
+			screen.append("INSTANCE:" + instance + "\tEXPERIMENT: " + title + "\n");
+		screen.append("Best Val = " + bestSol + "\n");
+		screen.append("Time = "+ time + " seg");
+		if (grasp.getLocalOptimaCache() != null)
+			screen.append("\n" + grasp.getLocalOptimaCache());
+		if (grasp.getReactiveAlpha() != null)
+			screen.append("\n" + grasp.getReactiveAlpha());
+		if (grasp.getMetrics() != null)
+			screen.append("\n" + grasp.getMetrics());
+		System.out.println(screen);
 		
 		if(fileWriter != null) {
+			StringBuilder report = new StringBuilder();
+			report.append(title + "\n");
+			report.append("Best solution: " + bestSol + "\n");
+			if (grasp.getLocalOptimaCache() != null)
+				report.append("Local optima cache hit ratio: " + grasp.getLocalOptimaCache().getHitRatio() + "\n");
+			if (grasp.getReactiveAlpha() != null)
+				report.append("Learned alpha distribution: " + grasp.getReactiveAlpha() + "\n");
+			report.append("Time: " + time + "seg \n\n");
 			try {
-				fileWriter.append(title + "\n");
-				fileWriter.append("Best solution: " + bestSol + "\n");
-				fileWriter.append("Time: " + time + "seg \n\n");
+				fileWriter.append(report);
+				fileWriter.flush();
 			} catch (IOException e) {
 				e.printStackTrace();
 				System.out.println("Error writing in file: "+title);
 			}
 		}
+		
+		if (sink != null) {
+			try {
+				sink.write(instance, title, bestSol.cost, grasp.getProgress().getIterations(), time);
+			} catch (IOException e) {
+				e.printStackTrace();
+				System.out.println("Error writing result: "+title);
+			}
+		}
+	}
+	
+	/**
+	 * Writes the convergence trace of a run as CSV, in the file
+	 * &lt;prefix&gt;.trace.csv.
+	 * 
+	 * @param trace
+	 *            the trace of the run, nothing is written if null.
+	 */
+	public static void writeTrace(String prefix, String instance, TraceRecorder trace) {
+		if (trace == null)
+			return;
+		
+		try (FileWriter csv = new FileWriter(prefix + ".trace.csv")) {
+			trace.writeCsv(csv, instance);
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.out.println("Error writing trace: "+prefix);
+		}
+	}
+	
+	/**
+	 * Writes the metrics of a run as CSV and JSON, in the files
+	 * &lt;prefix&gt;.metrics.csv and &lt;prefix&gt;.metrics.json.
+	 * 
+	 * @param metrics
+	 *            the metrics of the run, nothing is written if null.
+	 */
+	public static void writeMetrics(String prefix, SearchMetrics metrics) {
+		if (metrics == null)
+			return;
+		
+		try (FileWriter csv = new FileWriter(prefix + ".metrics.csv");
+				FileWriter json = new FileWriter(prefix + ".metrics.json")) {
+			metrics.writeCsv(csv);
+			metrics.writeJson(json);
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.out.println("Error writing metrics: "+prefix);
+		}
 	}
 	
 }
@@ -0,0 +1,43 @@
+package problems.pap.executors;
+
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * CSV file with one line per experiment, which the jobs of a concurrent sweep
+ * append to as they finish. Each line is written whole, under a lock, and
+ * flushed, so the lines of different jobs never interleave and the results
+ * of the jobs already finished survive an interrupted sweep.
+ */
+public class ResultSink implements Closeable {
+
+	private final FileWriter writer;
+
+	/**
+	 * Creates the file, replacing any previous one, and writes the header
+	 * instance, experiment, cost, iterations and time (in seconds).
+	 */
+	public ResultSink(String filename) throws IOException {
+		writer = new FileWriter(filename);
+		writer.write("instance,experiment,cost,iterations,time\n");
+		writer.flush();
+	}
+
+	/**
+	 * Appends the result of an experiment.
+	 */
+	public synchronized void write(String instance, String experiment, double cost, long iterations, double time)
+			throws IOException {
+		writer.write(instance + "," + experiment + "," + String.format(Locale.ROOT, "%.1f", cost) + ","
+				+ iterations + "," + String.format(Locale.ROOT, "%.3f", time) + "\n");
+		writer.flush();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		writer.close();
+	}
+
+}
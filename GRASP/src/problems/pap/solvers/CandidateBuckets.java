@@ -0,0 +1,133 @@
+package problems.pap.solvers;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import models.Triple;
+
+/**
+ * Candidate List of the constructive heuristic, sorted only once and grouped
+ * into buckets of candidates with the same score. Since the Restricted
+ * Candidate List holds the candidates whose score is above a threshold, it is
+ * always a prefix of the buckets: its size is found by walking the buckets,
+ * and a candidate is drawn from it and removed in O(#buckets), swapping it
+ * with the last candidate of its bucket.
+ */
+public class CandidateBuckets {
+
+	/**
+	 * the candidates, sorted by decreasing score; bucket b holds the
+	 * positions [start[b], start[b] + size[b])
+	 */
+	private final Triple[] items;
+	private final int[] score;
+	private final int[] start;
+	private final int[] size;
+
+	/**
+	 * first and last buckets which may still hold candidates
+	 */
+	private int first, last;
+	private int count;
+
+	/**
+	 * @param candidates
+	 *            the Candidate List.
+	 * @param scoreOf
+	 *            the score of a candidate, higher is better.
+	 */
+	public CandidateBuckets(Collection<Triple> candidates, ToIntFunction<Triple> scoreOf) {
+		items = candidates.toArray(new Triple[0]);
+		Arrays.sort(items, Comparator.comparingInt(scoreOf).reversed());
+		count = items.length;
+
+		int buckets = 0;
+		int[] _score = new int[items.length], _start = new int[items.length], _size = new int[items.length];
+		for (int i = 0; i < items.length; i++) {
+			int s = scoreOf.applyAsInt(items[i]);
+			if (buckets == 0 || _score[buckets - 1] != s) {
+				_score[buckets] = s;
+				_start[buckets] = i;
+				buckets++;
+			}
+			_size[buckets - 1]++;
+		}
+		score = Arrays.copyOf(_score, buckets);
+		start = Arrays.copyOf(_start, buckets);
+		size = Arrays.copyOf(_size, buckets);
+		first = 0;
+		last = buckets - 1;
+	}
+
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * @return the highest score among the remaining candidates.
+	 */
+	public int getBestScore() {
+		while (size[first] == 0)
+			first++;
+		return score[first];
+	}
+
+	/**
+	 * @return the lowest score among the remaining candidates.
+	 */
+	public int getWorstScore() {
+		while (size[last] == 0)
+			last--;
+		return score[last];
+	}
+
+	/**
+	 * @return the number of remaining candidates whose score is at least the
+	 *         given one.
+	 */
+	public int countAtLeast(double minScore) {
+		int total = 0;
+		for (int b = first; b <= last && score[b] >= minScore; b++)
+			total += size[b];
+		return total;
+	}
+
+	/**
+	 * Removes a candidate, counting in decreasing order of score.
+	 *
+	 * @param index
+	 *            the position of the candidate, which must be smaller than
+	 *            {@link #size()}.
+	 * @return the removed candidate.
+	 */
+	public Triple remove(int index) {
+		int b = first;
+		while (index >= size[b])
+			index -= size[b++];
+
+		int pos = start[b] + index, end = start[b] + --size[b];
+		Triple removed = items[pos];
+		items[pos] = items[end];
+		items[end] = null;
+		count--;
+		return removed;
+	}
+
+	/**
+	 * Appends the remaining candidates to a list, in decreasing order of
+	 * score.
+	 */
+	public void addTo(List<Triple> list) {
+		for (int b = first; b <= last; b++)
+			for (int i = start[b]; i < start[b] + size[b]; i++)
+				list.add(items[i]);
+	}
+
+}
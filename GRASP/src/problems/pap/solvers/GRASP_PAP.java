@@ -3,40 +3,281 @@ package problems.pap.solvers;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
 
 import metaheuristics.grasp.AbstractGRASP;
+import metaheuristics.grasp.LocalSearchPassEvent;
+import metaheuristics.grasp.SearchMetrics;
 import models.ConstructiveHeuristicType;
 import models.LocalSearchType;
+import models.Neighborhood;
 import models.Triple;
 import models.Candidate;
 import problems.pap.PAP;
+import problems.pap.PAPInstance;
 import solutions.Solution;
+import solutions.TripleSolution;
 
 
 public class GRASP_PAP extends AbstractGRASP<Triple> {
 
 	private LocalSearchType localSearchType;
 
+	private ConstructiveHeuristicType constructionType;
+
+	/**
+	 * the instance being solved, shared read-only with other solvers
+	 */
+	private final PAPInstance instance;
+
 	private int[] roomAvailability;
+
+	/**
+	 * Construction indices: the professor allocated to each discipline (-1 if
+	 * none), the periods in which each professor already teaches, as bitmasks
+	 * of {@link #words} longs, and how many they are.
+	 */
+	private final int[] owner;
+	private final long[] busy;
+	private final int[] busyPeriods;
+	private final int words;
+
+	/**
+	 * buffer with the periods assigned to the candidate being inserted
+	 */
+	private final int[] assignedPeriods;
+
+	/**
+	 * pairs (p, d) which can never improve a solution, since the professor
+	 * has no score in the discipline or no available period
+	 */
+	private final boolean[] useless;
+
+	/**
+	 * don't-look bits of the first improving local search, for each pair
+	 * (p, d) as a candidate to enter and as a triple to leave the solution
+	 */
+	private final boolean[] dontLookIn, dontLookOut;
+
+	/**
+	 * the objective function, with the evaluation of the compound moves
+	 */
+	private final PAP pap;
+
+	/**
+	 * buffers with the periods of the reassignment being evaluated and of the
+	 * best one
+	 */
+	private final int[] reassignedPeriods, bestPeriods;
+
+	/**
+	 * order in which the VND explores the neighborhoods, and for each
+	 * neighborhood the number of times it was explored, of times it improved
+	 * the solution, of moves evaluated and of nanoseconds spent
+	 */
+	private final Neighborhood[] vndOrder = Neighborhood.values();
+	private final long[] vndAttempts = new long[vndOrder.length];
+	private final long[] vndHits = new long[vndOrder.length];
+	private final long[] vndMoves = new long[vndOrder.length];
+	private final long[] vndNanos = new long[vndOrder.length];
+
+	/**
+	 * iterations and tenure of the tabu intensification phase, which is off
+	 * when the number of iterations is 0
+	 */
+	private int tabuIterations = 0;
+	private int tabuTenure = 7;
+
+	/**
+	 * tabu iteration until which professor p can not take discipline d again,
+	 * indexed by p*D + d
+	 */
+	private final int[] tabuUntil;
+
+	/**
+	 * allocation of each discipline in the guiding solution of the path
+	 * relinking: its professor (-1 if none) and its periods, in positions
+	 * [d*T, d*T + guideCount[d]), and the disciplines still allocated
+	 * differently
+	 */
+	private final int[] guideOwner, guideCount, guidePeriods, differences;
+
+	/**
+	 * the parallel scan of the neighborhoods, created on first use, and the
+	 * pool which runs it
+	 */
+	private ParallelNeighborhoodScan parallelScan;
+	private ForkJoinPool scanPool = ForkJoinPool.commonPool();
+
+	/**
+	 * timers of the scans of each neighborhood, of the passes of the first
+	 * improving local search, of the parallel scan and of the full
+	 * evaluations and validations, null while the metrics are disabled
+	 */
+	private final SearchMetrics.Timer[] neighborhoodTimers = new SearchMetrics.Timer[Neighborhood.values().length];
+	private SearchMetrics.Timer firstImprovingTimer, parallelScanTimer, evaluateTimer, validateTimer;
 	
 	public GRASP_PAP(Double alpha, Integer iterations, String filename, LocalSearchType localSearchType, 
 			ConstructiveHeuristicType constructionType) throws IOException {
-		super(new PAP(filename), alpha, iterations);
+		this(alpha, iterations, PAPInstance.read(filename), localSearchType, constructionType);
+	}
+
+	public GRASP_PAP(Double alpha, Integer iterations, PAPInstance instance, LocalSearchType localSearchType, 
+			ConstructiveHeuristicType constructionType) {
+		super(new PAP(instance), alpha, iterations);
+		this.instance = instance;
 		this.localSearchType = localSearchType;
-		roomAvailability = new int[ObjFunction.getValue("T")];
-		Arrays.fill(roomAvailability, ObjFunction.getValue("S"));
+		this.constructionType = constructionType;
+		roomAvailability = new int[instance.T];
+		owner = new int[instance.D];
+		words = (instance.T + 63) >>> 6;
+		busy = new long[instance.P * words];
+		busyPeriods = new int[instance.P];
+		assignedPeriods = new int[instance.T];
+		pap = (PAP) ObjFunction;
+		reassignedPeriods = new int[instance.T];
+		bestPeriods = new int[instance.T];
+		tabuUntil = new int[instance.P * instance.D];
+		guideOwner = new int[instance.D];
+		guideCount = new int[instance.D];
+		guidePeriods = new int[instance.D * instance.T];
+		differences = new int[instance.D];
+		useless = new boolean[instance.P * instance.D];
+		dontLookIn = new boolean[instance.P * instance.D];
+		dontLookOut = new boolean[instance.P * instance.D];
+		for (int p = 0; p < instance.P; p++) {
+			boolean available = false;
+			for (int t = 0; t < instance.T && !available; t++)
+				available = instance.getRpt(p, t) == 1;
+			for (int d = 0; d < instance.D; d++)
+				useless[p * instance.D + d] = !available || instance.getApd(p, d) == 0;
+		}
+	}
+
+	@Override
+	protected GRASP_PAP newWorker() {
+		GRASP_PAP worker = new GRASP_PAP(alpha, iterations, instance, localSearchType, constructionType);
+		worker.setTabuSearch(tabuIterations, tabuTenure);
+		worker.setScanPool(scanPool);
+		return worker;
+	}
+
+	@Override
+	public void setMetrics(SearchMetrics metrics) {
+		super.setMetrics(metrics);
+		for (Neighborhood neighborhood : Neighborhood.values())
+			neighborhoodTimers[neighborhood.ordinal()] = metrics != null
+					? metrics.timer(SearchMetrics.LOCAL_SEARCH + "." + neighborhood.name())
+					: null;
+		firstImprovingTimer = metrics != null
+				? metrics.timer(SearchMetrics.LOCAL_SEARCH + "." + LocalSearchType.FIRST_IMPROVING.name())
+				: null;
+		parallelScanTimer = metrics != null ? metrics.timer(SearchMetrics.LOCAL_SEARCH + ".PARALLEL_SCAN") : null;
+		evaluateTimer = metrics != null ? metrics.timer("evaluate") : null;
+		validateTimer = metrics != null ? metrics.timer("validate") : null;
+	}
+
+	private void tock(Neighborhood neighborhood, long start) {
+		tock(neighborhoodTimers[neighborhood.ordinal()], start);
+	}
+
+	/**
+	 * @return the flight recorder event of a local search pass, started.
+	 */
+	private static LocalSearchPassEvent beginPass() {
+		LocalSearchPassEvent pass = new LocalSearchPassEvent();
+		pass.begin();
+		return pass;
+	}
+
+	/**
+	 * Records the scan of a neighborhood which started at the given instant on
+	 * the metrics, and commits its flight recorder event if it is enabled.
+	 * 
+	 * @param moves
+	 *            the number of moves evaluated.
+	 * @param delta
+	 *            the cost variation of the best move found, infinite if none.
+	 */
+	private void endPass(LocalSearchPassEvent pass, Neighborhood neighborhood, long start, long moves, double delta) {
+		tock(neighborhood, start);
+		movesEvaluated(moves);
+		commitPass(pass, neighborhood.name(), moves, delta);
+	}
+
+	private static void commitPass(LocalSearchPassEvent pass, String neighborhood, long moves, double delta) {
+		if (!pass.shouldCommit())
+			return;
+		pass.neighborhood = neighborhood;
+		pass.movesScanned = moves;
+		pass.delta = delta;
+		pass.commit();
+	}
+
+	private void movesEvaluated(long moves) {
+		if (metrics != null)
+			metrics.movesEvaluated(moves);
+	}
+
+	private void moveAccepted() {
+		if (metrics != null)
+			metrics.moveAccepted();
+	}
+
+	/**
+	 * Evaluates the current solution from scratch.
+	 */
+	private void evaluateCurrent() {
+		long start = tick();
+		ObjFunction.evaluate(currentSol);
+		tock(evaluateTimer, start);
+	}
+
+	private boolean validate(Solution<Triple> sol) {
+		long start = tick();
+		boolean valid = pap.validate(sol);
+		tock(validateTimer, start);
+		return valid;
+	}
+
+	/**
+	 * Sets the pool which runs the parallel best improving local search, the
+	 * common fork/join pool by default. A dedicated pool keeps the scans from
+	 * competing with the workers of a parallel GRASP or with other
+	 * experiments running in the same JVM.
+	 * 
+	 * @param pool
+	 *            the pool, which the caller is responsible for shutting down.
+	 */
+	public void setScanPool(ForkJoinPool pool) {
+		this.scanPool = pool;
+		this.parallelScan = null;
+	}
+
+	/**
+	 * Enables the tabu intensification phase after the local search.
+	 * 
+	 * @param iterations
+	 *            the number of tabu iterations, 0 to disable the phase.
+	 * @param tenure
+	 *            the number of iterations a professor can not take back a
+	 *            discipline it lost.
+	 */
+	public void setTabuSearch(int iterations, int tenure) {
+		this.tabuIterations = iterations;
+		this.tabuTenure = tenure;
 	}
 
 	@Override
 	public ArrayList<Triple> makeCL() {
 
 		ArrayList<Triple> _CL = new ArrayList<Triple>();
-		for (int p = 0; p < ObjFunction.getValue("P"); p++) {
-			for (int d = 0; d < ObjFunction.getValue("D"); d++) {
+		for (int p = 0; p < instance.P; p++) {
+			for (int d = 0; d < instance.D; d++) {
 				// IMPORTANT: here CL its combinations of (p, d) and t represent
 				// the total of needed periods for that course (Hd)
-				_CL.add(new Triple(p, d, ObjFunction.getHd(d)));
+				_CL.add(new Triple(p, d, instance.getHd(d)));
 			}
 		}
 
@@ -56,7 +297,7 @@ public class GRASP_PAP extends AbstractGRASP<Triple> {
 
 	@Override
 	public Solution<Triple> createEmptySol() {
-		Solution<Triple> sol = new Solution<Triple>();
+		Solution<Triple> sol = new TripleSolution();
 		sol.cost = Double.NEGATIVE_INFINITY;
 		return sol;
 	}
@@ -66,46 +307,71 @@ public class GRASP_PAP extends AbstractGRASP<Triple> {
 		if(this.localSearchType.equals(LocalSearchType.FIRST_IMPROVING)) {
 			return this.firstImprovingLocalSearch();
 		}
+		if(this.localSearchType.equals(LocalSearchType.PARALLEL_BEST_IMPROVING)) {
+			return this.parallelBestImprovingLocalSearch();
+		}
+		if(this.localSearchType.equals(LocalSearchType.REASSIGN_PERIODS)) {
+			return this.reassignLocalSearch();
+		}
+		if(this.localSearchType.equals(LocalSearchType.PROFESSOR_SWAP)) {
+			return this.professorSwapLocalSearch();
+		}
+		if(this.localSearchType.equals(LocalSearchType.RELOCATE)) {
+			return this.relocateLocalSearch();
+		}
+		if(this.localSearchType.equals(LocalSearchType.VND)) {
+			return this.vndLocalSearch();
+		}
 		
 		return this.bestImprovingLocalSearch();
 	}
 	
 	private Candidate evaluateInsertions(Candidate cand, Solution<Triple> currentSol, Boolean first, double bestCost) {
-		double deltaCost = 0;
-		for (Triple candIn : CL) {
-			deltaCost = ObjFunction.evaluateInsertionCost(candIn, currentSol);
-			if (deltaCost < bestCost) {
-				cand.setDeltaCost(deltaCost);
-				cand.setTriple(candIn);
-				bestCost = deltaCost;
+		LocalSearchPassEvent pass = beginPass();
+		long start = tick();
+		double[] deltaCosts = deltaBuffer(CL.size());
+		ObjFunction.evaluateInsertionCosts(CL, currentSol, deltaCosts);
+		for (int i = 0; i < CL.size(); i++) {
+			if (deltaCosts[i] < bestCost) {
+				cand.setDeltaCost(deltaCosts[i]);
+				cand.setTriple(CL.get(i));
+				bestCost = deltaCosts[i];
 				if (first) break;
 			}
 		}
+		endPass(pass, Neighborhood.INSERT_REMOVE, start, CL.size(), cand.getDeltaCost());
 		return cand;
 	}
 	
 	private Candidate evaluateRemovals(Candidate cand, Solution<Triple> currentSol, Boolean first, double bestCost) {
-		double deltaCost = 0;
-		for (Triple candOut : currentSol) {
-			deltaCost = ObjFunction.evaluateRemovalCost(candOut, currentSol);
+		LocalSearchPassEvent pass = beginPass();
+		long start = tick();
+		double[] deltaCosts = deltaBuffer(currentSol.size());
+		ObjFunction.evaluateRemovalCosts(currentSol, currentSol, deltaCosts);
+		for (int i = 0; i < currentSol.size(); i++) {
+			double deltaCost = deltaCosts[i];
 			if (deltaCost < bestCost) {
 				cand.setDeltaCost(deltaCost);
-				cand.setTriple(candOut);
+				cand.setTriple(tripleAt(currentSol, i));
 				bestCost = deltaCost;
 				if (first) break;
 			}
 		}
+		endPass(pass, Neighborhood.INSERT_REMOVE, start, currentSol.size(), cand.getDeltaCost());
 		return cand;
 	}
 	
 	private Candidate[] evaluateExchanges(Candidate bestCandIn, Candidate bestCandOut, Solution<Triple> currentSol, Boolean first, double bestCost) {
-		double deltaCost = 0;
+		LocalSearchPassEvent pass = beginPass();
+		long start = tick();
+		double[] deltaCosts = deltaBuffer(currentSol.size());
 		for (Triple candIn : CL) {
-			for (Triple candOut : currentSol) {
-				deltaCost = ObjFunction.evaluateExchangeCost(candIn, candOut, currentSol);
+			ObjFunction.evaluateExchangeCosts(candIn, currentSol, currentSol, deltaCosts);
+			for (int i = 0; i < currentSol.size(); i++) {
+				double deltaCost = deltaCosts[i];
 				if (deltaCost < bestCost) {
 					bestCandIn.setTriple(candIn);
-					bestCandOut.setTriple(candOut);
+					bestCandOut.setTriple(tripleAt(currentSol, i));
 					bestCandIn.setDeltaCost(deltaCost);
 					bestCandOut.setDeltaCost(deltaCost);
 					bestCost = deltaCost;
@@ -113,10 +379,34 @@ public class GRASP_PAP extends AbstractGRASP<Triple> {
 				}
 			}
 		}
+		endPass(pass, Neighborhood.EXCHANGE, start, (long) CL.size() * currentSol.size(), bestCandIn.getDeltaCost());
 		return new Candidate[] {bestCandIn, bestCandOut};
 	}
 	
-	private void updateCurrentSolution(Candidate bestCandIn, Candidate bestCandOut) {
+	/**
+	 * @return the packed triple in position i of a solution of this solver,
+	 *         in the order of its iterator, see {@link Triple#key()}.
+	 */
+	private static long keyAt(Solution<Triple> sol, int i) {
+		return ((TripleSolution) sol).keyAt(i);
+	}
+
+	/**
+	 * @return the triple in position i of a solution of this solver; only
+	 *         the triples of the chosen moves are decoded, so the scans over
+	 *         the solution do not allocate.
+	 */
+	private static Triple tripleAt(Solution<Triple> sol, int i) {
+		return Triple.of(keyAt(sol, i));
+	}
+
+	/**
+	 * Applies the insertion, removal or exchange of the candidates if it
+	 * improves the current solution.
+	 * 
+	 * @return true if the move was applied.
+	 */
+	private boolean updateCurrentSolution(Candidate bestCandIn, Candidate bestCandOut) {
 		Double minDeltaCost = Math.min(bestCandIn.getDeltaCost(), bestCandOut.getDeltaCost());
 		if (minDeltaCost < -Double.MIN_VALUE) {
 			if (bestCandOut.getTriple() != null) {
@@ -128,42 +418,121 @@ public class GRASP_PAP extends AbstractGRASP<Triple> {
 				CL.remove(bestCandIn.getTriple());
 			}
 			
-			ObjFunction.evaluate(currentSol);
+			evaluateCurrent();
+			return true;
 		}
+		return false;
 	}
 	
+	/**
+	 * First improving local search with neighborhood pruning. Candidates that
+	 * can never improve the solution, those with no score in the discipline
+	 * or whose professor has no available period, are never evaluated. A
+	 * candidate whose insertion and exchanges did not improve gets its
+	 * don't-look bit set, as does a triple of the solution whose removal did
+	 * not improve, and it is skipped until a move touches its professor or
+	 * discipline. Each pass starts scanning the CL where the last improving
+	 * move was found, and the passes repeat until none improves.
+	 */
 	public Solution<Triple> firstImprovingLocalSearch(){
-		Double minDeltaCost = -Double.MIN_VALUE;
-		
-		updateCL();
-		Candidate bestCandIn = new Candidate(), bestCandOut = new Candidate();
-			
-		// Evaluate insertions
-		bestCandIn = evaluateInsertions(bestCandIn, currentSol, true, minDeltaCost);
-		if (bestCandIn.getDeltaCost() < minDeltaCost) {
-			minDeltaCost = bestCandIn.getDeltaCost();
-			bestCandOut.setTriple(null);
-		}
-		
-		// Evaluate removals
-		bestCandOut = evaluateRemovals(bestCandOut, currentSol, true, minDeltaCost);
-		if (bestCandOut.getDeltaCost() < minDeltaCost) {
-			minDeltaCost = bestCandIn.getDeltaCost();
-			bestCandIn.setTriple(null);
-		}
-		
-		// Evaluate exchanges
-		Candidate[] inOut = evaluateExchanges(bestCandIn, bestCandOut, currentSol, true, minDeltaCost);
-		if (inOut[0].getDeltaCost() < minDeltaCost) {
-			bestCandIn = inOut[0];
-			bestCandOut = inOut[1];
-			minDeltaCost = bestCandIn.getDeltaCost();
-		}
-		
-		updateCurrentSolution(bestCandIn, bestCandOut);
-		
+		Arrays.fill(dontLookIn, false);
+		Arrays.fill(dontLookOut, false);
+		int start = 0;
+
+		Candidate candIn, candOut;
+		do {
+			updateCL();
+			candIn = new Candidate();
+			candOut = new Candidate();
+			// Timed as a whole, its moves are too cheap to time one by one
+			LocalSearchPassEvent pass = beginPass();
+			long passStart = tick();
+			long scanned = 0;
+
+			// Evaluate insertions, and exchanges of the same candidate
+			int n = CL.size();
+			for (int k = 0; k < n && candIn.getTriple() == null; k++) {
+				int i = (start + k) % n;
+				Triple in = CL.get(i);
+				int pd = in.getP() * instance.D + in.getD();
+				if (useless[pd] || dontLookIn[pd])
+					continue;
+
+				double deltaCost = ObjFunction.evaluateInsertionDelta(in, currentSol);
+				scanned++;
+				if (deltaCost < -Double.MIN_VALUE) {
+					candIn.setTriple(in);
+					candIn.setDeltaCost(deltaCost);
+					start = i;
+					break;
+				}
+
+				double[] deltaCosts = deltaBuffer(currentSol.size());
+				ObjFunction.evaluateExchangeCosts(in, currentSol, currentSol, deltaCosts);
+				scanned += currentSol.size();
+				for (int o = 0; o < currentSol.size(); o++) {
+					deltaCost = deltaCosts[o];
+					if (deltaCost < -Double.MIN_VALUE) {
+						candIn.setTriple(in);
+						candOut.setTriple(tripleAt(currentSol, o));
+						candIn.setDeltaCost(deltaCost);
+						candOut.setDeltaCost(deltaCost);
+						start = i;
+						break;
+					}
+				}
+				if (candIn.getTriple() == null)
+					dontLookIn[pd] = true;
+			}
+
+			// Evaluate removals
+			if (candIn.getTriple() == null) {
+				int evaluated = 0;
+				for (int o = 0; o < currentSol.size(); o++) {
+					long out = keyAt(currentSol, o);
+					int pd = Triple.p(out) * instance.D + Triple.d(out);
+					if (dontLookOut[pd])
+						continue;
+
+					evaluated++;
+					double deltaCost = pap.evaluateRemovalDelta(out, currentSol);
+					if (deltaCost < -Double.MIN_VALUE) {
+						candOut.setTriple(Triple.of(out));
+						candOut.setDeltaCost(deltaCost);
+						break;
+					}
+					dontLookOut[pd] = true;
+				}
+				scanned += evaluated;
+			}
+			tock(firstImprovingTimer, passStart);
+			movesEvaluated(scanned);
+			commitPass(pass, LocalSearchType.FIRST_IMPROVING.name(), scanned,
+					Math.min(candIn.getDeltaCost(), candOut.getDeltaCost()));
+
+			lookAgain(candIn.getTriple());
+			lookAgain(candOut.getTriple());
+			if (updateCurrentSolution(candIn, candOut))
+				moveAccepted();
+
+		} while ((candIn.getTriple() != null || candOut.getTriple() != null) && !shouldStop());
+
 		return null;
 	}
+
+	/**
+	 * Clears the don't-look bits of the candidates sharing the professor or
+	 * the discipline of a triple touched by a move.
+	 */
+	private void lookAgain(Triple triple) {
+		if (triple == null)
+			return;
+		int p = triple.getP(), d = triple.getD();
+		for (int i = 0; i < instance.D; i++)
+			dontLookIn[p * instance.D + i] = dontLookOut[p * instance.D + i] = false;
+		for (int i = 0; i < instance.P; i++)
+			dontLookIn[i * instance.D + d] = dontLookOut[i * instance.D + d] = false;
+	}
 	
 	public Solution<Triple> bestImprovingLocalSearch(){
 		Double minDeltaCost;
@@ -197,68 +566,571 @@ public class GRASP_PAP extends AbstractGRASP<Triple> {
 				minDeltaCost = bestCandIn.getDeltaCost();
 			}
 			
-			updateCurrentSolution(bestCandIn, bestCandOut);
+			if (updateCurrentSolution(bestCandIn, bestCandOut))
+				moveAccepted();
 			
-		} while (minDeltaCost < -Double.MIN_VALUE);
+		} while (minDeltaCost < -Double.MIN_VALUE && !shouldStop());
 
 		return null;
 
 	}
 
+	/**
+	 * Best improving local search whose neighborhoods are scanned by
+	 * {@link ParallelNeighborhoodScan} on the pool set by
+	 * {@link #setScanPool(ForkJoinPool)}. On each pass it applies the move
+	 * with the lowest cost variation among all insertions, removals and
+	 * exchanges.
+	 */
+	public Solution<Triple> parallelBestImprovingLocalSearch(){
+		if (parallelScan == null)
+			parallelScan = new ParallelNeighborhoodScan(instance, scanPool);
+
+		Double minDeltaCost;
+		do {
+			updateCL();
+			LocalSearchPassEvent pass = beginPass();
+			long start = tick();
+			Candidate[] inOut = parallelScan.scan(CL, currentSol);
+			tock(parallelScanTimer, start);
+			long moves = (long) CL.size() * (currentSol.size() + 1) + currentSol.size();
+			movesEvaluated(moves);
+			minDeltaCost = inOut[0].getDeltaCost();
+			commitPass(pass, "PARALLEL_SCAN", moves, minDeltaCost);
+			if (updateCurrentSolution(inOut[0], inOut[1]))
+				moveAccepted();
+		} while (minDeltaCost < -Double.MIN_VALUE && !shouldStop());
+
+		return null;
+	}
+
+	/**
+	 * Best improving local search over the reassignments of a discipline to
+	 * another professor, with all its periods chosen again.
+	 */
+	public Solution<Triple> reassignLocalSearch(){
+		while (applyBestReassignment() && !shouldStop());
+		return null;
+	}
+
+	/**
+	 * Best improving local search over the swaps of the professors of two
+	 * disciplines, each keeping its periods.
+	 */
+	public Solution<Triple> professorSwapLocalSearch(){
+		while (applyBestSwap() && !shouldStop());
+		return null;
+	}
+
+	/**
+	 * Reassignment local search which, whenever no reassignment improves,
+	 * moves a single class to a less crowded period, freeing room for the
+	 * next reassignments. Each relocation makes the room usage more even, so
+	 * the search ends.
+	 */
+	public Solution<Triple> relocateLocalSearch(){
+		while ((applyBestReassignment() || applyBestRelocation()) && !shouldStop());
+		return null;
+	}
+
+	/**
+	 * Variable Neighborhood Descent. The neighborhoods are explored in order
+	 * and, as soon as one of them improves the solution, the descent goes back
+	 * to the first one, so an expensive neighborhood is only explored when
+	 * the cheaper ones are exhausted. At the end, the order is adapted to the
+	 * hits per move evaluated of each neighborhood, which favors the cheap
+	 * and the successful ones. The statistics only count moves, not time, so
+	 * the order does not depend on the speed of the machine. Each worker of a
+	 * parallel run adapts its own order to the iterations it runs, so a
+	 * parallel run with the VND is not reproducible, see
+	 * {@link #solveParallel()}.
+	 */
+	public Solution<Triple> vndLocalSearch(){
+		int k = 0;
+		while (k < vndOrder.length && !shouldStop()) {
+			Neighborhood neighborhood = vndOrder[k];
+			int n = neighborhood.ordinal();
+
+			long start = System.nanoTime();
+			vndMoves[n] += neighborhoodSize(neighborhood);
+			boolean improved = applyBest(neighborhood);
+			vndNanos[n] += System.nanoTime() - start;
+			vndAttempts[n]++;
+
+			if (improved) {
+				vndHits[n]++;
+				k = 0;
+			} else {
+				k++;
+			}
+		}
+
+		Arrays.sort(vndOrder, Comparator.comparingDouble((Neighborhood n) -> -vndScore(n)));
+		return null;
+	}
+
+	/**
+	 * Applies the best improving move of a neighborhood.
+	 * 
+	 * @return true if a move was applied.
+	 */
+	private boolean applyBest(Neighborhood neighborhood) {
+		switch (neighborhood) {
+		case INSERT_REMOVE:
+			updateCL();
+			Candidate bestCandIn = evaluateInsertions(new Candidate(), currentSol, false, -Double.MIN_VALUE);
+			Candidate bestCandOut = evaluateRemovals(new Candidate(), currentSol, false, bestCandIn.getDeltaCost());
+			if (bestCandOut.getTriple() != null)
+				bestCandIn = new Candidate();
+			return applyMove(bestCandIn, bestCandOut);
+		case RELOCATE:
+			return applyBestRelocation();
+		case REASSIGN:
+			return applyBestReassignment();
+		case EXCHANGE:
+			updateCL();
+			Candidate[] inOut = evaluateExchanges(new Candidate(), new Candidate(), currentSol, false, -Double.MIN_VALUE);
+			return applyMove(inOut[0], inOut[1]);
+		case SWAP:
+			return applyBestSwap();
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Applies an insertion, removal or exchange, keeping it only if the
+	 * solution stays feasible and its cost really improves, since the cost
+	 * variations of these moves ignore the disciplines left without a
+	 * professor. This keeps the descent monotone, so the VND ends.
+	 * 
+	 * @return true if the move was kept.
+	 */
+	private boolean applyMove(Candidate candIn, Candidate candOut) {
+		Triple in = candIn.getTriple(), out = candOut.getTriple();
+		if (in == null && out == null)
+			return false;
+
+		double cost = currentSol.cost;
+		updateCurrentSolution(candIn, candOut);
+		if (validate(currentSol) && currentSol.cost > cost) {
+			moveAccepted();
+			return true;
+		}
+
+		if (in != null) {
+			currentSol.remove(in);
+			CL.add(in);
+		}
+		if (out != null) {
+			currentSol.add(out);
+			CL.remove(out);
+		}
+		currentSol.cost = cost;
+		return false;
+	}
+
+	/**
+	 * @return the number of moves of a neighborhood of the current solution.
+	 */
+	private long neighborhoodSize(Neighborhood neighborhood) {
+		switch (neighborhood) {
+		case INSERT_REMOVE:
+			return CL.size() + currentSol.size();
+		case RELOCATE:
+			return (long) currentSol.size() * instance.T;
+		case REASSIGN:
+			return (long) instance.D * instance.P;
+		case EXCHANGE:
+			return (long) CL.size() * currentSol.size();
+		case SWAP:
+			return (long) instance.D * (instance.D - 1) / 2;
+		default:
+			return 0;
+		}
+	}
+
+	private double vndScore(Neighborhood neighborhood) {
+		int n = neighborhood.ordinal();
+		return (vndHits[n] + 1.0) / (vndMoves[n] + 1.0);
+	}
+
+	/**
+	 * @return the order in which the VND explores the neighborhoods.
+	 */
+	public Neighborhood[] getNeighborhoodOrder() {
+		return vndOrder.clone();
+	}
+
+	/**
+	 * @param neighborhood
+	 *            the neighborhood.
+	 * @return the fraction of the explorations of the neighborhood by the VND
+	 *         which improved the solution.
+	 */
+	public double getHitRate(Neighborhood neighborhood) {
+		int n = neighborhood.ordinal();
+		return vndAttempts[n] == 0 ? 0.0 : (double) vndHits[n] / vndAttempts[n];
+	}
+
+	/**
+	 * @param neighborhood
+	 *            the neighborhood.
+	 * @return the nanoseconds the VND spent exploring the neighborhood.
+	 */
+	public long getNeighborhoodNanos(Neighborhood neighborhood) {
+		return vndNanos[neighborhood.ordinal()];
+	}
+
+	/**
+	 * Tabu search over the reassignments and the professor swaps, started
+	 * from the local optimum. On each iteration it applies the best move,
+	 * even if it worsens the solution, among those not tabu: a professor who
+	 * loses a discipline can not take it back for {@link #tabuTenure}
+	 * iterations, unless the move leads to a solution better than the best
+	 * one of the phase (aspiration). The phase runs for {@link #tabuIterations}
+	 * iterations, or until no move is allowed, and the current solution ends
+	 * as the best one found.
+	 */
 	@Override
-	public Solution<Triple> constructiveHeuristic() {
-		return this.defaultConstructiveHeuristic();
+	public void intensify() {
+		if (tabuIterations <= 0 || !validate(currentSol))
+			return;
+
+		Solution<Triple> bestSol = currentSol.copy();
+		Arrays.fill(tabuUntil, 0);
+		for (int iter = 1; iter <= tabuIterations && !shouldStop(); iter++) {
+			double minDeltaCost = Double.POSITIVE_INFINITY;
+			int bestD = -1, bestP = -1, bestD2 = -1;
+
+			for (int d = 0; d < instance.D; d++) {
+				for (int p = 0; p < instance.P; p++) {
+					double deltaCost = pap.evaluateReassignCost(d, p, currentSol, reassignedPeriods);
+					if (deltaCost < minDeltaCost && isAllowed(deltaCost, bestSol, iter, p * instance.D + d, -1)) {
+						minDeltaCost = deltaCost;
+						bestD = d;
+						bestP = p;
+						bestD2 = -1;
+						System.arraycopy(reassignedPeriods, 0, bestPeriods, 0, instance.getHd(d));
+					}
+				}
+			}
+
+			for (int d1 = 0; d1 < instance.D; d1++) {
+				for (int d2 = d1 + 1; d2 < instance.D; d2++) {
+					double deltaCost = pap.evaluateSwapCost(d1, d2, currentSol);
+					if (deltaCost < minDeltaCost && isAllowed(deltaCost, bestSol, iter,
+							pap.getProfessor(d2) * instance.D + d1, pap.getProfessor(d1) * instance.D + d2)) {
+						minDeltaCost = deltaCost;
+						bestD = d1;
+						bestD2 = d2;
+					}
+				}
+			}
+
+			movesEvaluated((long) instance.D * instance.P + (long) instance.D * (instance.D - 1) / 2);
+			if (bestD < 0)
+				break;
+
+			moveAccepted();
+			if (bestD2 < 0) {
+				int owner = pap.getProfessor(bestD);
+				applyReassignment(bestD, bestP, bestPeriods);
+				if (owner >= 0)
+					tabuUntil[owner * instance.D + bestD] = iter + tabuTenure;
+			} else {
+				int p1 = pap.getProfessor(bestD), p2 = pap.getProfessor(bestD2);
+				applySwap(bestD, bestD2);
+				tabuUntil[p1 * instance.D + bestD] = iter + tabuTenure;
+				tabuUntil[p2 * instance.D + bestD2] = iter + tabuTenure;
+			}
+
+			if (currentSol.cost > bestSol.cost)
+				bestSol = currentSol.copy();
+		}
+
+		currentSol = bestSol;
 	}
-	
-	private void chooseCandidateRandomly(List<Triple> candidates) {
-		int rndIndex = rng.nextInt(candidates.size());
-		Triple inCand = candidates.get(rndIndex);
-		CL.remove(inCand);
 
-		int otherClassesPeriods = 0;
-		for (Triple sol:currentSol) {
+	@Override
+	protected boolean isFeasible(Solution<Triple> sol) {
+		return validate(sol);
+	}
 
-			//Guarantee that the subject is not already being teached by other professor
-			if (sol.getD().equals(inCand.getD()))
-				return;
+	/**
+	 * Forward path relinking from the current local optimum to a guiding
+	 * solution. Each step gives one of the disciplines allocated differently
+	 * in the two solutions its allocation in the guide, choosing the feasible
+	 * step with the lowest cost variation, evaluated on the delta state. The
+	 * best intermediate solution, if better than the starting one, is
+	 * improved by the local search and becomes the current solution.
+	 */
+	@Override
+	public void pathRelinking(Solution<Triple> guide) {
+		if (!validate(currentSol))
+			return;
 
-			//Count other classes periods
-			if (sol.getP().equals(inCand.getP()))
-				otherClassesPeriods += sol.getT();
+		Arrays.fill(guideOwner, -1);
+		Arrays.fill(guideCount, 0);
+		for (Triple triple : guide) {
+			int d = triple.getD();
+			guideOwner[d] = triple.getP();
+			guidePeriods[d * instance.T + guideCount[d]++] = triple.getT();
 		}
 
-		Integer[] disp = ObjFunction.getRpt(inCand.getP());
-		//Create a copy of the rooms so it only gets updated if all periods of this subject can be properly allocated
-		int[] roomCopy = roomAvailability.clone();
-		ArrayList<Integer> assignedPeriods = new ArrayList<Integer>();
+		int pending = 0;
+		for (int d = 0; d < instance.D; d++)
+			if (!hasGuideAllocation(d))
+				differences[pending++] = d;
 
-		for (int i=0; i<disp.length; i++) {
-			//All periods assigned
-			if (inCand.getT() == 0)
+		Solution<Triple> startSol = currentSol.copy(), bestSol = startSol;
+		// The last step would reach the guide itself
+		while (pending > 1 && !shouldStop()) {
+			double minDeltaCost = Double.MAX_VALUE;
+			int best = -1;
+			for (int k = 0; k < pending; k++) {
+				int d = differences[k];
+				double deltaCost = pap.evaluateAssignCost(d, guideOwner[d], guidePeriods, d * instance.T,
+						guideCount[d], currentSol);
+				if (deltaCost < minDeltaCost) {
+					minDeltaCost = deltaCost;
+					best = k;
+				}
+			}
+			movesEvaluated(pending);
+			if (best < 0)
 				break;
 
-			//Check if the professor is available on the period
-			if (disp[i] == 1) {
-				//Check if the professor is not already assigned on the period for other classes
-				if (otherClassesPeriods > 0) {
-					--otherClassesPeriods;
-				} else if (roomCopy[i] > 0) {
-					//Assign the professor to teach the class on this period, if there is an available room
-					inCand.setT(inCand.getT()-1);
-					assignedPeriods.add(new Integer(i));
-					--roomCopy[i];
+			moveAccepted();
+			int d = differences[best];
+			applyAssignment(d, guideOwner[d], guidePeriods, d * instance.T, guideCount[d]);
+			differences[best] = differences[--pending];
+			if (currentSol.cost > bestSol.cost)
+				bestSol = currentSol.copy();
+		}
+
+		currentSol = bestSol;
+		if (bestSol != startSol) {
+			updateCL();
+			localSearch();
+		}
+	}
+
+	/**
+	 * @return true if discipline d has, in the current solution, the same
+	 *         professor and periods as in the guide.
+	 */
+	private boolean hasGuideAllocation(int d) {
+		int p = pap.getProfessor(d);
+		if (p != guideOwner[d])
+			return false;
+		for (int i = 0; i < guideCount[d]; i++)
+			if (!pap.isTeaching(p, d, guidePeriods[d * instance.T + i]))
+				return false;
+		return true;
+	}
+
+	/**
+	 * @return true if a move which gives professors the disciplines indexed
+	 *         by pd1 and pd2 (-1 if none) is not tabu, or leads to a solution
+	 *         better than the best one.
+	 */
+	private boolean isAllowed(double deltaCost, Solution<Triple> bestSol, int iter, int pd1, int pd2) {
+		if (deltaCost == Double.MAX_VALUE)
+			return false;
+		if (tabuUntil[pd1] < iter && (pd2 < 0 || tabuUntil[pd2] < iter))
+			return true;
+		return currentSol.cost - deltaCost > bestSol.cost;
+	}
+
+	/**
+	 * Applies the reassignment of a discipline to another professor with the
+	 * lowest cost variation, if it improves the current solution.
+	 * 
+	 * @return true if a reassignment was applied.
+	 */
+	private boolean applyBestReassignment() {
+		LocalSearchPassEvent pass = beginPass();
+		long start = tick();
+		double minDeltaCost = -Double.MIN_VALUE;
+		int bestD = -1, bestP = -1;
+		for (int d = 0; d < instance.D; d++) {
+			for (int p = 0; p < instance.P; p++) {
+				double deltaCost = pap.evaluateReassignCost(d, p, currentSol, reassignedPeriods);
+				if (deltaCost < minDeltaCost) {
+					minDeltaCost = deltaCost;
+					bestD = d;
+					bestP = p;
+					System.arraycopy(reassignedPeriods, 0, bestPeriods, 0, instance.getHd(d));
 				}
 			}
 		}
+		endPass(pass, Neighborhood.REASSIGN, start, (long) instance.D * instance.P,
+				bestD < 0 ? Double.POSITIVE_INFINITY : minDeltaCost);
+		if (bestD < 0)
+			return false;
+
+		applyReassignment(bestD, bestP, bestPeriods);
+		moveAccepted();
+		return true;
+	}
+
+	/**
+	 * Reassigns discipline d of the current solution to professor p, in the
+	 * given periods.
+	 */
+	private void applyReassignment(int d, int p, int[] periods) {
+		applyAssignment(d, p, periods, 0, instance.getHd(d));
+	}
+
+	/**
+	 * Gives discipline d of the current solution to professor p, or to no one
+	 * if p is -1, in the periods in positions [from, from + count).
+	 */
+	private void applyAssignment(int d, int p, int[] periods, int from, int count) {
+		int owner = pap.getProfessor(d);
+		if (owner >= 0)
+			for (int t = 0; t < instance.T; t++)
+				currentSol.remove(new Triple(owner, d, t));
+		if (p >= 0)
+			for (int i = from; i < from + count; i++)
+				currentSol.add(new Triple(p, d, periods[i]));
+		evaluateCurrent();
+	}
+
+	/**
+	 * Applies the swap of the professors of two disciplines with the lowest
+	 * cost variation, if it improves the current solution.
+	 * 
+	 * @return true if a swap was applied.
+	 */
+	private boolean applyBestSwap() {
+		LocalSearchPassEvent pass = beginPass();
+		long start = tick();
+		double minDeltaCost = -Double.MIN_VALUE;
+		int bestD1 = -1, bestD2 = -1;
+		for (int d1 = 0; d1 < instance.D; d1++) {
+			for (int d2 = d1 + 1; d2 < instance.D; d2++) {
+				double deltaCost = pap.evaluateSwapCost(d1, d2, currentSol);
+				if (deltaCost < minDeltaCost) {
+					minDeltaCost = deltaCost;
+					bestD1 = d1;
+					bestD2 = d2;
+				}
+			}
+		}
+		endPass(pass, Neighborhood.SWAP, start, (long) instance.D * (instance.D - 1) / 2,
+				bestD1 < 0 ? Double.POSITIVE_INFINITY : minDeltaCost);
+		if (bestD1 < 0)
+			return false;
+
+		applySwap(bestD1, bestD2);
+		moveAccepted();
+		return true;
+	}
+
+	/**
+	 * Swaps the professors of disciplines d1 and d2 of the current solution.
+	 */
+	private void applySwap(int d1, int d2) {
+		int p1 = pap.getProfessor(d1), p2 = pap.getProfessor(d2);
+		for (int t = 0; t < instance.T; t++) {
+			boolean taught1 = currentSol.remove(new Triple(p1, d1, t));
+			boolean taught2 = currentSol.remove(new Triple(p2, d2, t));
+			if (taught1)
+				currentSol.add(new Triple(p2, d1, t));
+			if (taught2)
+				currentSol.add(new Triple(p1, d2, t));
+		}
+		evaluateCurrent();
+	}
+
+	/**
+	 * Moves the class of the current solution to the period which most
+	 * reduces the difference between the number of classes of the two periods.
+	 * 
+	 * @return true if a class was moved.
+	 */
+	private boolean applyBestRelocation() {
+		if (!validate(currentSol))
+			return false;
 
-		if(inCand.getT() == 0){
-			for (int classPeriod:assignedPeriods) {
-				Triple cand = new Triple(inCand.getP(), inCand.getD(), classPeriod);
-				currentSol.add(cand);
+		LocalSearchPassEvent pass = beginPass();
+		long start = tick();
+		int bestGain = 0, bestT = -1;
+		long bestKey = -1;
+		for (int i = 0; i < currentSol.size(); i++) {
+			long key = keyAt(currentSol, i);
+			int used = pap.getRoomsUsed(Triple.t(key));
+			for (int t = 0; t < instance.T; t++) {
+				int gain = used - pap.getRoomsUsed(t) - 1;
+				if (gain > bestGain && pap.evaluateRelocateCost(key, t, currentSol) == 0.0) {
+					bestGain = gain;
+					bestKey = key;
+					bestT = t;
+				}
 			}
-			roomAvailability = roomCopy;
-			ObjFunction.evaluate(currentSol);
 		}
+		// Relocations do not change the cost
+		endPass(pass, Neighborhood.RELOCATE, start, (long) currentSol.size() * instance.T,
+				bestKey < 0 ? Double.POSITIVE_INFINITY : 0.0);
+		if (bestKey < 0)
+			return false;
+
+		Triple bestClass = Triple.of(bestKey);
+		currentSol.remove(bestClass);
+		currentSol.add(new Triple(bestClass.getP(), bestClass.getD(), bestT));
+		evaluateCurrent();
+		moveAccepted();
+		return true;
+	}
+
+	@Override
+	public Solution<Triple> constructiveHeuristic() {
+		return this.defaultConstructiveHeuristic();
+	}
+	
+	/**
+	 * Tries to allocate the periods of a candidate pair (p, d), drawn from the
+	 * RCL, adding them to the current solution if all of them fit. The
+	 * discipline owners and the busy periods of the professor are looked up
+	 * in the construction indices, so this is O(T) and keeps the cost of the
+	 * solution up to date without evaluating it again.
+	 */
+	private void insertCandidate(Triple inCand) {
+		int p = inCand.getP(), d = inCand.getD();
+
+		//Guarantee that the subject is not already being teached by other professor
+		if (owner[d] != -1)
+			return;
+
+		//The professor can not teach more than H periods
+		int needed = inCand.getT();
+		if (busyPeriods[p] + needed > instance.H)
+			return;
+
+		int assigned = 0;
+		for (int t = 0; t < instance.T && assigned < needed; t++) {
+			//Check if the professor is available on the period, is not already assigned
+			//on the period for other classes, and if there is an available room
+			if (instance.getRpt(p, t) == 1 && (busy[p * words + (t >>> 6)] & (1L << t)) == 0
+					&& roomAvailability[t] > 0)
+				assignedPeriods[assigned++] = t;
+		}
+
+		//Only allocate the subject if all its periods could be assigned
+		if (assigned < needed)
+			return;
+
+		for (int i = 0; i < assigned; i++) {
+			int t = assignedPeriods[i];
+			currentSol.add(new Triple(p, d, t));
+			busy[p * words + (t >>> 6)] |= 1L << t;
+			--roomAvailability[t];
+		}
+		busyPeriods[p] += assigned;
+		owner[d] = p;
+		currentSol.cost += instance.getApd(p, d) + PAP.UNALLOCATED_PENALTY;
 	}
 	
 	public Solution<Triple> defaultConstructiveHeuristic() {
@@ -266,44 +1138,49 @@ public class GRASP_PAP extends AbstractGRASP<Triple> {
 		RCL = makeRCL();
 		currentSol = createEmptySol();
 		currentCost = Double.POSITIVE_INFINITY;
-		Integer[][] apd = ObjFunction.getApd();
+		Arrays.fill(roomAvailability, instance.S);
+		Arrays.fill(owner, -1);
+		Arrays.fill(busy, 0L);
+		Arrays.fill(busyPeriods, 0);
+		evaluateCurrent();
+		
+		// Sort pair (p, d) by Apd, only once
+		CandidateBuckets candidates = new CandidateBuckets(CL, c -> instance.getApd(c.getP(), c.getD()));
 		
 		/* Main loop, which repeats until the stopping criteria is reached. */
-		while (!constructiveStopCriteria()) {
+		while (!constructiveStopCriteria() && !shouldStop()) {
 			
-			// Sort pair (p, d) by Apd
-			CL.sort((p1, p2) -> Integer.compare(apd[p2.getP()][p2.getD()], apd[p1.getP()][p1.getD()]));
-			currentCost = ObjFunction.evaluate(currentSol);
+			currentCost = currentSol.cost;
 			updateCL();
 			
+			if (candidates.isEmpty()) {
+				break;
+			}
+			
 			// Get min and max costs
-			Triple first = CL.get(0);
-			Triple last = CL.get(CL.size() - 1);
-			int maxCost = -apd[last.getP()][last.getD()];
-			int minCost = -apd[first.getP()][first.getD()];
+			int maxCost = -candidates.getWorstScore();
+			int minCost = -candidates.getBestScore();
 			
 			/*
-			 * Among all candidates, insert into the RCL those with the highest
-			 * performance using parameter alpha as threshold.
+			 * Among all candidates, the RCL holds those with the highest
+			 * performance using parameter alpha as threshold, which is a
+			 * prefix of the sorted candidates.
 			 */
-			for (int i = 0; i < CL.size(); ++i) {
-				Triple c = CL.get(i);
-				Integer cost = -apd[c.getP()][c.getD()];
-				if (cost <= minCost + alpha * (maxCost - minCost)) {
-					RCL.add(c);
-				}
-			}
+			int rclSize = candidates.countAtLeast(-(minCost + alpha * (maxCost - minCost)));
 			
 			/*Stop when RCL is empty */
-			if (RCL.isEmpty()) {
+			if (rclSize == 0) {
 				break;
 			}
 
 			/* Choose a candidate randomly from the RCL */
-			chooseCandidateRandomly(RCL);
-			RCL.clear();
+			insertCandidate(candidates.remove(rng.nextInt(rclSize)));
 
 		}
+		
+		// The candidates left are the ones for the local search
+		CL.clear();
+		candidates.addTo(CL);
 
 		return currentSol;
 	}
@@ -0,0 +1,193 @@
+package problems.pap.solvers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import models.Candidate;
+import models.Triple;
+import problems.pap.PAP;
+import problems.pap.PAPInstance;
+import solutions.Solution;
+
+/**
+ * Best-improving scan of the insertion, removal and exchange neighborhoods
+ * of a solution, split into slices run on a fork/join pool. The moves are
+ * numbered: first the insertions of the CL, then the removals of the
+ * solution, then the exchanges, row by row of the CL. The moves are split
+ * into one slice per thread of the pool, each evaluated with the delta state
+ * of its own evaluator, and the slices are reduced to the move with the
+ * lowest cost variation, ties going to the lowest number, so the chosen move
+ * does not depend on how the work was split.
+ *
+ * The evaluators belong to the scan, not to the threads of the pool, so they
+ * are released with it.
+ */
+public class ParallelNeighborhoodScan {
+
+	private final ForkJoinPool pool;
+	private final PAPInstance instance;
+
+	/**
+	 * evaluator of each slice, created on first use, since their delta state
+	 * can not be shared
+	 */
+	private final PAP[] evaluators;
+
+	/**
+	 * the neighborhood being scanned
+	 */
+	private Triple[] in, out;
+	private Solution<Triple> sol;
+
+	/**
+	 * @param instance
+	 *            the instance being solved.
+	 * @param pool
+	 *            the pool which runs the chunks.
+	 */
+	public ParallelNeighborhoodScan(PAPInstance instance, ForkJoinPool pool) {
+		this.pool = pool;
+		this.instance = instance;
+		this.evaluators = new PAP[pool.getParallelism()];
+	}
+
+	/**
+	 * Finds the best move of the neighborhoods of a solution. The solution
+	 * must not be modified during the scan.
+	 * 
+	 * @param CL
+	 *            the candidates to enter the solution.
+	 * @param sol
+	 *            the solution.
+	 * @return the entering and the leaving candidate of the best move, either
+	 *         of them without a triple for insertions and removals, both with
+	 *         the cost variation of the move.
+	 */
+	public Candidate[] scan(List<Triple> CL, Solution<Triple> sol) {
+		this.in = CL.toArray(new Triple[0]);
+		this.out = sol.toArray(new Triple[0]);
+		this.sol = sol;
+
+		long moves = in.length + out.length + (long) in.length * out.length;
+		Move best = moves == 0 ? null : pool.invoke(new Scan(moves));
+		this.in = this.out = null;
+		this.sol = null;
+
+		Candidate candIn = new Candidate(), candOut = new Candidate();
+		if (best != null) {
+			candIn.setTriple(best.in);
+			candOut.setTriple(best.out);
+			candIn.setDeltaCost(best.deltaCost);
+			candOut.setDeltaCost(best.deltaCost);
+		}
+		return new Candidate[] { candIn, candOut };
+	}
+
+	private static final class Move {
+		final long index;
+		final double deltaCost;
+		final Triple in, out;
+
+		Move(long index, double deltaCost, Triple in, Triple out) {
+			this.index = index;
+			this.deltaCost = deltaCost;
+			this.in = in;
+			this.out = out;
+		}
+
+		Move min(Move other) {
+			if (other == null)
+				return this;
+			if (deltaCost < other.deltaCost || (deltaCost == other.deltaCost && index < other.index))
+				return this;
+			return other;
+		}
+	}
+
+	/**
+	 * Runs the slices and reduces them to the best move.
+	 */
+	@SuppressWarnings("serial")
+	private final class Scan extends RecursiveTask<Move> {
+
+		private final long moves;
+
+		Scan(long moves) {
+			this.moves = moves;
+		}
+
+		@Override
+		protected Move compute() {
+			int slices = evaluators.length;
+			List<Slice> tasks = new ArrayList<Slice>(slices);
+			for (int s = 0; s < slices; s++)
+				tasks.add(new Slice(s, moves * s / slices, moves * (s + 1) / slices));
+			invokeAll(tasks);
+
+			Move best = null;
+			for (Slice task : tasks) {
+				Move move = task.join();
+				if (move != null)
+					best = move.min(best);
+			}
+			return best;
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private final class Slice extends RecursiveTask<Move> {
+
+		private final int slice;
+		private final long from, to;
+
+		Slice(int slice, long from, long to) {
+			this.slice = slice;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Move compute() {
+			if (from == to)
+				return null;
+			// Only this slice touches its evaluator during a scan
+			if (evaluators[slice] == null)
+				evaluators[slice] = new PAP(instance);
+			PAP evaluator = evaluators[slice];
+			long bestIndex = -1;
+			double bestCost = Double.POSITIVE_INFINITY;
+			for (long i = from; i < to; i++) {
+				double deltaCost = evaluate(evaluator, i);
+				if (deltaCost < bestCost) {
+					bestCost = deltaCost;
+					bestIndex = i;
+				}
+			}
+			return bestIndex < 0 ? null : move(bestIndex, bestCost);
+		}
+
+		private double evaluate(PAP evaluator, long i) {
+			if (i < in.length)
+				return evaluator.evaluateInsertionDelta(in[(int) i], sol);
+			i -= in.length;
+			if (i < out.length)
+				return evaluator.evaluateRemovalDelta(out[(int) i], sol);
+			i -= out.length;
+			return evaluator.evaluateExchangeDelta(in[(int) (i / out.length)], out[(int) (i % out.length)], sol);
+		}
+
+		private Move move(long index, double deltaCost) {
+			long i = index;
+			if (i < in.length)
+				return new Move(index, deltaCost, in[(int) i], null);
+			i -= in.length;
+			if (i < out.length)
+				return new Move(index, deltaCost, null, out[(int) i]);
+			i -= out.length;
+			return new Move(index, deltaCost, in[(int) (i / out.length)], out[(int) (i % out.length)]);
+		}
+	}
+
+}
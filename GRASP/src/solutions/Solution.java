@@ -1,19 +1,178 @@
 package solutions;
 
+import java.util.AbstractSet;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
 
-@SuppressWarnings("serial")
-public class Solution<E> extends HashSet<E> {
+public class Solution<E> extends AbstractSet<E> {
 	
 	public Double cost = Double.POSITIVE_INFINITY;
 	
+	/**
+	 * the elements of the solution
+	 */
+	private final Set<E> elements;
+	
+	/**
+	 * Counter of structural modifications (insertions and removals). It allows
+	 * incremental evaluators to check, in O(1), whether the state they keep
+	 * for this solution is still up to date.
+	 */
+	private long version;
+
+	/**
+	 * Zobrist hash of the elements, the XOR of the keys of all of them, kept
+	 * up to date on every insertion and removal.
+	 */
+	private long hash;
+	
 	public Solution() {
-		super();
+		this(new HashSet<E>());
 	}
 	
+	/**
+	 * Creates a copy of a solution backed by a {@link HashSet}. The hash is
+	 * copied only from a solution of the same class, since a subclass may
+	 * derive the keys of its elements differently, see
+	 * {@link #zobristKey(Object)}; otherwise it is computed again.
+	 */
 	public Solution(Solution<E> sol) {
-		super(sol);
+		this(new HashSet<E>(sol.elements));
 		cost = sol.cost;
+		if (sol.getClass() == getClass()) {
+			hash = sol.hash;
+		} else {
+			for (E e : elements)
+				hash ^= zobristKey(e);
+		}
+	}
+
+	/**
+	 * Creates a solution backed by the given set, which subclasses use to
+	 * store the elements in a specialized set.
+	 */
+	protected Solution(Set<E> elements) {
+		this.elements = elements;
+	}
+
+	/**
+	 * @return a copy of this solution, with the same kind of storage.
+	 */
+	public Solution<E> copy() {
+		return new Solution<E>(this);
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return the Zobrist hash of the solution, which only depends on its
+	 *         elements.
+	 */
+	public long getHash() {
+		return hash;
+	}
+
+	/**
+	 * Hamming distance to another solution, i.e., the number of elements that
+	 * belong to only one of them. It takes O(|this| + |other|) membership
+	 * tests.
+	 */
+	public int distance(Solution<E> other) {
+		int common = 0;
+		for (E e : this)
+			if (other.contains(e))
+				common++;
+		return size() + other.size() - 2 * common;
+	}
+
+	/**
+	 * Zobrist key of an element, a pseudo-random 64-bit value derived from
+	 * its hash code. Subclasses may override it with a key derived from a
+	 * wider identifier of the element.
+	 */
+	protected long zobristKey(Object e) {
+		return mix(e.hashCode());
+	}
+
+	/**
+	 * Copies the hash of another solution, for subclasses whose copy does not
+	 * go through {@link #Solution(Solution)}.
+	 */
+	protected void copyHash(Solution<E> sol) {
+		hash = sol.hash;
+	}
+
+	/**
+	 * SplitMix64 finalizer, which spreads the bits of a value over a 64-bit
+	 * key.
+	 */
+	protected static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	@Override
+	public int size() {
+		return elements.size();
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return elements.contains(o);
+	}
+
+	@Override
+	public boolean add(E e) {
+		if (!elements.add(e))
+			return false;
+		hash ^= zobristKey(e);
+		version++;
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (!elements.remove(o))
+			return false;
+		hash ^= zobristKey(o);
+		version++;
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		elements.clear();
+		hash = 0;
+		version++;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		Iterator<E> it = elements.iterator();
+		return new Iterator<E>() {
+			private E last;
+
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public E next() {
+				return last = it.next();
+			}
+
+			@Override
+			public void remove() {
+				it.remove();
+				hash ^= zobristKey(last);
+				version++;
+			}
+		};
 	}
 
 	@Override
@@ -22,4 +181,3 @@ public class Solution<E> extends HashSet<E> {
 	}
 
 }
-
@@ -0,0 +1,186 @@
+package solutions;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import models.Triple;
+
+/**
+ * Set of triples stored as packed long keys (see {@link Triple#key()}), with
+ * no object per element. The keys are kept densely in an array, which makes
+ * iteration a sequential scan, and indexed by an open-addressing table with
+ * linear probing, which makes contains, add and remove O(1). A removed key is
+ * replaced by the last one, and the table uses backward-shift deletion, so
+ * there are no tombstones. Copying the set copies two arrays.
+ */
+public class TripleSet extends AbstractSet<Triple> {
+
+	/**
+	 * the keys, in positions [0, size)
+	 */
+	private long[] keys;
+	private int size;
+
+	/**
+	 * open-addressing table with 1 + the position of each key, 0 when empty;
+	 * its length is a power of two at least twice the number of keys
+	 */
+	private int[] table;
+	private int mask;
+
+	public TripleSet() {
+		keys = new long[8];
+		table = new int[16];
+		mask = table.length - 1;
+	}
+
+	public TripleSet(TripleSet set) {
+		keys = Arrays.copyOf(set.keys, set.keys.length);
+		size = set.size;
+		table = Arrays.copyOf(set.table, set.table.length);
+		mask = set.mask;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the key in the given position, which must be smaller than
+	 *         {@link #size()}.
+	 */
+	public long keyAt(int i) {
+		return keys[i];
+	}
+
+	public boolean containsKey(long key) {
+		return slotOf(key) >= 0;
+	}
+
+	public boolean addKey(long key) {
+		int slot = slotOf(key);
+		if (slot >= 0)
+			return false;
+
+		if (2 * (size + 1) > table.length) {
+			rehash(2 * table.length);
+			slot = slotOf(key);
+		}
+		if (size == keys.length)
+			keys = Arrays.copyOf(keys, 2 * keys.length);
+
+		keys[size++] = key;
+		table[~slot] = size;
+		return true;
+	}
+
+	public boolean removeKey(long key) {
+		int slot = slotOf(key);
+		if (slot < 0)
+			return false;
+
+		// Move the last key into the position being freed
+		int pos = table[slot] - 1, last = size - 1;
+		if (pos != last) {
+			table[slotOf(keys[last])] = pos + 1;
+			keys[pos] = keys[last];
+		}
+		size--;
+
+		// Backward-shift the keys probed after the freed slot
+		int free = slot;
+		for (int j = (free + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+			int home = hash(keys[table[j] - 1]) & mask;
+			if (((j - home) & mask) >= ((j - free) & mask)) {
+				table[free] = table[j];
+				free = j;
+			}
+		}
+		table[free] = 0;
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return o instanceof Triple && containsKey(((Triple) o).key());
+	}
+
+	@Override
+	public boolean add(Triple e) {
+		return addKey(e.key());
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		return o instanceof Triple && removeKey(((Triple) o).key());
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(table, 0);
+		size = 0;
+	}
+
+	@Override
+	public Iterator<Triple> iterator() {
+		return new Iterator<Triple>() {
+			private int cursor;
+			private boolean removable;
+
+			@Override
+			public boolean hasNext() {
+				return cursor < size;
+			}
+
+			@Override
+			public Triple next() {
+				if (cursor >= size)
+					throw new NoSuchElementException();
+				removable = true;
+				return Triple.of(keys[cursor++]);
+			}
+
+			@Override
+			public void remove() {
+				if (!removable)
+					throw new IllegalStateException();
+				removable = false;
+				// The last key takes the place of the removed one, visit it next
+				removeKey(keys[--cursor]);
+			}
+		};
+	}
+
+	/**
+	 * @return the slot of the key, or ~slot of the empty slot where it would
+	 *         be inserted.
+	 */
+	private int slotOf(long key) {
+		for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+			int entry = table[i];
+			if (entry == 0)
+				return ~i;
+			if (keys[entry - 1] == key)
+				return i;
+		}
+	}
+
+	private void rehash(int capacity) {
+		table = new int[capacity];
+		mask = capacity - 1;
+		for (int pos = 0; pos < size; pos++) {
+			int i = hash(keys[pos]) & mask;
+			while (table[i] != 0)
+				i = (i + 1) & mask;
+			table[i] = pos + 1;
+		}
+	}
+
+	private static int hash(long key) {
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+	}
+
+}
@@ -0,0 +1,54 @@
+package solutions;
+
+import models.Triple;
+
+/**
+ * Solution whose elements are triples, stored in a {@link TripleSet}. Copying
+ * it, e.g. to keep the incumbent, is a copy of two primitive arrays.
+ */
+public class TripleSolution extends Solution<Triple> {
+
+	private final TripleSet set;
+
+	public TripleSolution() {
+		this(new TripleSet());
+	}
+
+	public TripleSolution(TripleSolution sol) {
+		this(new TripleSet(sol.set));
+		cost = sol.cost;
+		copyHash(sol);
+	}
+
+	private TripleSolution(TripleSet set) {
+		super(set);
+		this.set = set;
+	}
+
+	/**
+	 * The key is derived from the packed triple, so distinct triples never
+	 * share the same hash code before mixing.
+	 */
+	@Override
+	protected long zobristKey(Object e) {
+		return mix(((Triple) e).key());
+	}
+
+	@Override
+	public TripleSolution copy() {
+		return new TripleSolution(this);
+	}
+
+	/**
+	 * @return the key in the given position, which must be smaller than
+	 *         {@link #size()}; see {@link Triple#key()}.
+	 */
+	public long keyAt(int i) {
+		return set.keyAt(i);
+	}
+
+	public boolean containsKey(long key) {
+		return set.containsKey(key);
+	}
+
+}
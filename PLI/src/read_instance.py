@@ -6,7 +6,26 @@ import numpy as np
 def _get_val(line):
 	return int(re.compile(r'. (?P<var>\d+)\n').search(line).group('var'))
 
+def _read_binary(filename):
+	# Sidecar written by the Java loader (PAPReader): big-endian ints with
+	# magic, version, P, D, T, S, H, hd, apd and rpt
+	data = np.memmap(filename, dtype='>i4', mode='r')
+	if data[0] != 0x50415042 or data[1] != 1:
+		raise ValueError(f'Invalid binary instance: {filename}')
+	P, D, T, S, H = (int(v) for v in data[2:7])
+	hd = np.array(data[7:7 + D])
+	apd = np.array(data[7 + D:7 + D + P * D]).reshape(P, D)
+	rpt = np.array(data[7 + D + P * D:7 + D + P * (D + T)]).reshape(P, T)
+	return P, D, T, S, H, hd, apd, rpt
+
 def read_input(filename):
+	binary = filename + 'b'
+	if os.path.exists(binary) and os.path.getmtime(binary) >= os.path.getmtime(filename):
+		try:
+			return _read_binary(binary)
+		except ValueError:
+			pass
+
 	text_io = open(filename, 'r')
 	P = _get_val(text_io.readline())
 	D = _get_val(text_io.readline())